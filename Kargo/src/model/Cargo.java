@@ -5,7 +5,7 @@ import java.util.Date;
 public class Cargo {
     private int id;
 
-    private Date date;
+    private long dateMillis; // Epoch milliseconds, CargoDates.NO_DATE if unknown
 
     private boolean isDelivered;
 
@@ -17,9 +17,20 @@ public class Cargo {
 
     private int cityId;
 
+    // Location in the city tree: owning node and position in its cargo list
+    private CityNode cityNode;
+
+    private int citySlot = -1;
+
+    private CargoChangeListener changeListener;
+
     public Cargo(int id, Date date, int deliveryTime, Status status, Client client, int cityId){
+        this(id, date == null ? CargoDates.NO_DATE : date.getTime(), deliveryTime, status, client, cityId);
+    }
+
+    public Cargo(int id, long dateMillis, int deliveryTime, Status status, Client client, int cityId){
         this.id = id;
-        this.date = date;
+        this.dateMillis = dateMillis;
         this.deliveryTime = deliveryTime;
         this.status = status;
         this.client = client;
@@ -34,12 +45,31 @@ public class Cargo {
         this.id = id;
     }
 
+    // A copy, changing it does not change the cargo
     public Date getDate() {
-        return date;
+        long millis = getDateMillis();
+        return millis == CargoDates.NO_DATE ? null : new Date(millis);
     }
 
     public void setDate(Date date) {
-        this.date = date;
+        setDateMillis(date == null ? CargoDates.NO_DATE : date.getTime());
+    }
+
+    public long getDateMillis() {
+        return dateMillis;
+    }
+
+    public void setDateMillis(long dateMillis) {
+        long oldDateMillis = this.dateMillis;
+        this.dateMillis = dateMillis;
+        if (changeListener != null && oldDateMillis != dateMillis) {
+            changeListener.dateChanged(this, oldDateMillis, dateMillis);
+        }
+    }
+
+    // Day of the shipment date counted from 1970-01-01, or CargoDates.NO_DAY
+    public int getEpochDay() {
+        return CargoDates.toEpochDay(getDateMillis());
     }
 
     public boolean isDelivered() {
@@ -55,7 +85,11 @@ public class Cargo {
     }
 
     public void setStatus(Status status) {
+        Status oldStatus = this.status;
         this.status = status;
+        if (changeListener != null && oldStatus != status) {
+            changeListener.statusChanged(this, oldStatus, status);
+        }
     }
 
     public int getDeliveryTime() {
@@ -79,14 +113,56 @@ public class Cargo {
     }
 
     public void setCityId(int cityId) {
-        this.cityId = cityId;
+        changeCityId(cityId);
+
+        // Move the cargo if it is already attached to a different city of a tree
+        if (cityNode != null && cityNode.getCityId() != cityId && cityNode.getTree() != null) {
+            CityNode newCity = cityNode.getTree().findCityById(cityId);
+            if (newCity != null) {
+                newCity.addCargo(this);
+            } else {
+                cityNode.removeCargo(this);
+            }
+        }
+    }
+
+    public CityNode getCityNode() {
+        return cityNode;
+    }
+
+    int getCitySlot() {
+        return citySlot;
+    }
+
+    void setCityLocation(CityNode cityNode, int citySlot) {
+        this.cityNode = cityNode;
+        this.citySlot = citySlot;
+        if (cityNode != null) {
+            changeCityId(cityNode.getCityId());
+        }
+    }
+
+    private void changeCityId(int newCityId) {
+        int oldCityId = this.cityId;
+        this.cityId = newCityId;
+        if (changeListener != null && oldCityId != newCityId) {
+            changeListener.cityChanged(this, oldCityId, newCityId);
+        }
+    }
+
+    public CargoChangeListener getChangeListener() {
+        return changeListener;
+    }
+
+    public void setChangeListener(CargoChangeListener changeListener) {
+        this.changeListener = changeListener;
     }
 
     @Override
     public String toString() {
         return "model.Cargo{" +
                 "id=" + id +
-                ", date=" + date +
+                ", date=" + getDate() +
                 ", isDelivered=" + isDelivered +
                 ", status=" + status +
                 ", deliveryTime=" + deliveryTime +
@@ -0,0 +1,13 @@
+package model;
+
+// Notified when the status, city or date of a cargo changes, so indexes kept outside the cargo stay current
+public interface CargoChangeListener {
+    default void statusChanged(Cargo cargo, Status oldStatus, Status newStatus) {
+    }
+
+    default void cityChanged(Cargo cargo, int oldCityId, int newCityId) {
+    }
+
+    default void dateChanged(Cargo cargo, long oldDateMillis, long newDateMillis) {
+    }
+}
@@ -0,0 +1,43 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Shared date conversion and formatting for cargo dates.
+// Dates are kept as epoch milliseconds; days are counted in the system time zone.
+// DateTimeFormatter is immutable, so one instance serves every thread and every UI refresh.
+public final class CargoDates {
+    public static final long NO_DATE = Long.MIN_VALUE;
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ISO_LOCAL_DATE; // yyyy-MM-dd
+
+    private CargoDates() {
+    }
+
+    // e.g. "2024-05-17", or "-" if the date is unknown
+    public static String format(long dateMillis) {
+        return dateMillis == NO_DATE ? "-" : FORMAT.format(Instant.ofEpochMilli(dateMillis).atZone(ZONE));
+    }
+
+    // Parse yyyy-MM-dd to the start of that day in epoch milliseconds
+    public static long parse(String text) throws DateTimeParseException {
+        return startOfDay(LocalDate.parse(text, FORMAT).toEpochDay());
+    }
+
+    // Day of the date counted from 1970-01-01, or NO_DAY if the date is unknown
+    public static int toEpochDay(long dateMillis) {
+        if (dateMillis == NO_DATE) {
+            return NO_DAY;
+        }
+        return (int) LocalDate.ofInstant(Instant.ofEpochMilli(dateMillis), ZONE).toEpochDay();
+    }
+
+    public static long startOfDay(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,409 @@
+package model;
+
+import java.util.AbstractSequentialList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+// Shipment history ordered by date (oldest first, ties broken by cargo ID).
+// Backed by a skip list: O(log n) insert and remove, bottom level is doubly linked
+// so the newest entries are reached from the tail in O(1).
+public class CargoHistory extends AbstractSequentialList<Cargo> {
+    private static final int MAX_LEVEL = 32;
+
+    private static final class Node {
+        final Cargo cargo;
+        final long dateKey;
+        final int id;
+        final Node[] next;
+        Node prev; // Previous node on the bottom level (null for the first node)
+
+        Node(Cargo cargo, int level) {
+            this.cargo = cargo;
+            this.dateKey = dateKeyOf(cargo);
+            this.id = cargo == null ? 0 : cargo.getId();
+            this.next = new Node[level];
+        }
+    }
+
+    private final Node head = new Node(null, MAX_LEVEL);
+    private Node tail;
+    private int level = 1;
+    private int size;
+    private int seed = 0x9E3779B9;
+
+    public CargoHistory() {
+    }
+
+    public CargoHistory(List<Cargo> cargos) {
+        for (Cargo cargo : cargos) {
+            insert(cargo);
+        }
+    }
+
+    // Insert in date order. Time complexity O(log n) expected
+    @Override
+    public boolean add(Cargo cargo) {
+        insert(cargo);
+        return true;
+    }
+
+    // Kept private so the constructor does not call an overridable method
+    private void insert(Cargo cargo) {
+        Node[] update = new Node[MAX_LEVEL];
+        long dateKey = dateKeyOf(cargo);
+        int id = cargo.getId();
+
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            // Equal keys go after the existing ones, so insertion order is kept among them
+            while (node.next[i] != null && compare(node.next[i], dateKey, id) <= 0) {
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                update[i] = head;
+            }
+            level = newLevel;
+        }
+
+        Node newNode = new Node(cargo, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            newNode.next[i] = update[i].next[i];
+            update[i].next[i] = newNode;
+        }
+
+        newNode.prev = update[0] == head ? null : update[0];
+        if (newNode.next[0] != null) {
+            newNode.next[0].prev = newNode;
+        } else {
+            tail = newNode;
+        }
+
+        size++;
+        modCount++;
+    }
+
+    // Merge a batch into the history in one pass: the batch is sorted, then every insert
+    // continues from the position of the previous one. Time complexity O(n + m log m)
+    @Override
+    public boolean addAll(Collection<? extends Cargo> cargos) {
+        if (cargos.isEmpty()) {
+            return false;
+        }
+        Cargo[] batch = cargos.toArray(new Cargo[0]);
+        Arrays.sort(batch, Comparator.comparingLong(CargoHistory::dateKeyOf).thenComparingInt(Cargo::getId));
+
+        Node[] update = new Node[MAX_LEVEL];
+        Arrays.fill(update, head);
+        for (Cargo cargo : batch) {
+            long dateKey = dateKeyOf(cargo);
+            int id = cargo.getId();
+
+            // Keys only grow, so each level continues from where the previous insert stopped
+            for (int i = level - 1; i >= 0; i--) {
+                Node node = update[i];
+                while (node.next[i] != null && compare(node.next[i], dateKey, id) <= 0) {
+                    node = node.next[i];
+                }
+                update[i] = node;
+            }
+
+            int newLevel = randomLevel();
+            if (newLevel > level) {
+                level = newLevel;
+            }
+
+            Node before = update[0];
+            Node newNode = new Node(cargo, newLevel);
+            for (int i = 0; i < newLevel; i++) {
+                newNode.next[i] = update[i].next[i];
+                update[i].next[i] = newNode;
+                update[i] = newNode;
+            }
+
+            newNode.prev = before == head ? null : before;
+            if (newNode.next[0] != null) {
+                newNode.next[0].prev = newNode;
+            } else {
+                tail = newNode;
+            }
+            size++;
+        }
+        modCount++;
+        return true;
+    }
+
+    // Remove the given cargo. Time complexity O(log n) expected
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Cargo cargo)) {
+            return false;
+        }
+        Node target = findNode(cargo);
+        if (target == null) {
+            return false;
+        }
+        unlink(target);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Cargo cargo && findNode(cargo) != null;
+    }
+
+    // Move the cargo to the position of its new date after cargo.setDate. Returns false if it is
+    // not in the history. Time complexity O(log n) expected
+    public boolean dateChanged(Cargo cargo, long oldDateMillis) {
+        Node target = findNode(cargo, oldDateMillis);
+        if (target == null) {
+            return false;
+        }
+        unlink(target);
+        add(cargo);
+        return true;
+    }
+
+    // Newest cargo, or null when the history is empty. Time complexity O(1)
+    public Cargo getNewest() {
+        return tail == null ? null : tail.cargo;
+    }
+
+    // The newest n cargos, newest first. Time complexity O(n)
+    public List<Cargo> getLatest(int n) {
+        List<Cargo> latest = new ArrayList<>(Math.max(0, Math.min(n, size)));
+        for (Node node = tail; node != null && latest.size() < n; node = node.prev) {
+            latest.add(node.cargo);
+        }
+        return latest;
+    }
+
+    // Iterate from newest to oldest without copying
+    public Iterator<Cargo> descendingIterator() {
+        return new Iterator<>() {
+            private Node next = tail;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Cargo next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Cargo cargo = next.cargo;
+                next = next.prev;
+                return cargo;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+        }
+        tail = null;
+        level = 1;
+        size = 0;
+        modCount++;
+    }
+
+    // Walks from the nearer end, so positions close to the newest entries are cheap
+    @Override
+    public ListIterator<Cargo> listIterator(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new HistoryIterator(index);
+    }
+
+    private Node findNode(Cargo cargo) {
+        return findNode(cargo, dateKeyOf(cargo));
+    }
+
+    // Entries keep the date they were inserted with, so a cargo whose date changed is found by its old date
+    private Node findNode(Cargo cargo, long dateKey) {
+        int id = cargo.getId();
+
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && compare(node.next[i], dateKey, id) < 0) {
+                node = node.next[i];
+            }
+        }
+
+        // Several entries can share a key; look for this exact cargo among them
+        for (Node candidate = node.next[0]; candidate != null && compare(candidate, dateKey, id) == 0;
+             candidate = candidate.next[0]) {
+            if (candidate.cargo == cargo) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void unlink(Node target) {
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && compare(node.next[i], target.dateKey, target.id) < 0) {
+                node = node.next[i];
+            }
+            // Skip over other entries with the same key until the target is reached
+            Node p = node;
+            while (p.next[i] != null && p.next[i] != target && compare(p.next[i], target.dateKey, target.id) == 0) {
+                p = p.next[i];
+            }
+            if (p.next[i] == target) {
+                p.next[i] = target.next[i];
+            }
+        }
+
+        if (target.next[0] != null) {
+            target.next[0].prev = target.prev;
+        } else {
+            tail = target.prev;
+        }
+
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        modCount++;
+    }
+
+    private int randomLevel() {
+        // xorshift, one level per trailing one bit (p = 1/2)
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        int newLevel = Integer.numberOfTrailingZeros(~seed) + 1;
+        return Math.min(newLevel, MAX_LEVEL);
+    }
+
+    private static int compare(Node node, long dateKey, int id) {
+        int c = Long.compare(node.dateKey, dateKey);
+        return c != 0 ? c : Integer.compare(node.id, id);
+    }
+
+    private static long dateKeyOf(Cargo cargo) {
+        return cargo == null ? CargoDates.NO_DATE : cargo.getDateMillis();
+    }
+
+    private final class HistoryIterator implements ListIterator<Cargo> {
+        private Node next;
+        private Node lastReturned;
+        private int nextIndex;
+        private int expectedModCount = modCount;
+
+        HistoryIterator(int index) {
+            if (index <= size / 2) {
+                next = head.next[0];
+                for (int i = 0; i < index; i++) {
+                    next = next.next[0];
+                }
+            } else {
+                next = null;
+                for (int i = size; i > index; i--) {
+                    next = next == null ? tail : next.prev;
+                }
+            }
+            nextIndex = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        @Override
+        public Cargo next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = next.next[0];
+            nextIndex++;
+            return lastReturned.cargo;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public Cargo previous() {
+            checkForComodification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            next = next == null ? tail : next.prev;
+            lastReturned = next;
+            nextIndex--;
+            return lastReturned.cargo;
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (next == lastReturned) {
+                next = lastReturned.next[0];
+            } else {
+                nextIndex--;
+            }
+            unlink(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        // Positions are decided by date, so entries cannot be placed or replaced by index
+        @Override
+        public void set(Cargo cargo) {
+            throw new UnsupportedOperationException("Cargo history is ordered by date");
+        }
+
+        @Override
+        public void add(Cargo cargo) {
+            throw new UnsupportedOperationException("Cargo history is ordered by date");
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Lowest common ancestor of two cities in O(1) after O(n log n) preprocessing.
+// The tree is walked once as an Euler tour (a city is written down each time the walk passes it);
+// the LCA of two cities is the shallowest city between their first visits, found with a sparse table.
+// The walk runs over the int arrays of a FlatCityTree, so cities are identified by their preorder position.
+// Built for one version of the tree and never changed, so it can be read without locking.
+final class CityLca {
+    final int version;
+
+    private final FlatCityTree flat;
+    private final int[] firstVisit;    // By position, index in the tour
+    private final int[][] sparse;      // sparse[k][i] = shallowest position in tour[i .. i + 2^k - 1]
+
+    CityLca(FlatCityTree flat) {
+        this.version = flat.version;
+        this.flat = flat;
+        int n = flat.size();
+        this.firstVisit = new int[n];
+
+        // Every city is written once on the way down and each parent once more after each child: 2n - 1 entries
+        int m = n == 0 ? 0 : 2 * n - 1;
+        int[] tour = new int[m];
+        if (n > 0) {
+            int t = 0;
+            int pos = 0;
+            firstVisit[0] = t;
+            tour[t++] = 0;
+            int next = flat.firstChild(0);
+            while (true) {
+                if (next != FlatCityTree.NONE) {
+                    // Down into the next child
+                    pos = next;
+                    firstVisit[pos] = t;
+                    tour[t++] = pos;
+                    next = flat.firstChild(pos);
+                } else if (pos == 0) {
+                    break;
+                } else {
+                    // Back in the parent, then on to the following sibling
+                    next = flat.nextSibling(pos);
+                    pos = flat.parent(pos);
+                    tour[t++] = pos;
+                }
+            }
+        }
+
+        int levels = m == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(m);
+        this.sparse = new int[levels][];
+        sparse[0] = tour;
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int[] prev = sparse[k - 1];
+            int[] cur = new int[m - (1 << k) + 1];
+            for (int i = 0; i < cur.length; i++) {
+                cur[i] = shallower(prev[i], prev[i + half]);
+            }
+            sparse[k] = cur;
+        }
+    }
+
+    boolean contains(CityNode city) {
+        return flat.positionOf(city) != FlatCityTree.NONE;
+    }
+
+    int depth(CityNode city) {
+        return flat.depth(flat.positionOf(city));
+    }
+
+    // Time complexity O(1)
+    CityNode lca(CityNode a, CityNode b) {
+        return flat.node(lca(flat.positionOf(a), flat.positionOf(b)));
+    }
+
+    // Number of edges between the cities. Time complexity O(1)
+    int distance(CityNode a, CityNode b) {
+        int from = flat.positionOf(a);
+        int to = flat.positionOf(b);
+        return flat.depth(from) + flat.depth(to) - 2 * flat.depth(lca(from, to));
+    }
+
+    // Cities from a to b, both included. Time complexity O(length of the path)
+    List<CityNode> path(CityNode a, CityNode b) {
+        int from = flat.positionOf(a);
+        int to = flat.positionOf(b);
+        int meet = lca(from, to);
+        List<CityNode> up = new ArrayList<>();
+        for (int pos = from; pos != meet; pos = flat.parent(pos)) {
+            up.add(flat.node(pos));
+        }
+        up.add(flat.node(meet));
+        List<CityNode> down = new ArrayList<>();
+        for (int pos = to; pos != meet; pos = flat.parent(pos)) {
+            down.add(flat.node(pos));
+        }
+        Collections.reverse(down);
+        up.addAll(down);
+        return up;
+    }
+
+    private int lca(int a, int b) {
+        int from = firstVisit[a];
+        int to = firstVisit[b];
+        if (from > to) {
+            int tmp = from;
+            from = to;
+            to = tmp;
+        }
+        int k = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+        return shallower(sparse[k][from], sparse[k][to - (1 << k) + 1]);
+    }
+
+    private int shallower(int a, int b) {
+        return flat.depth(a) <= flat.depth(b) ? a : b;
+    }
+}
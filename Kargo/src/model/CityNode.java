@@ -1,6 +1,8 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public class CityNode {
@@ -8,7 +10,9 @@ public class CityNode {
     private String cityName;
     private int cityId;
     private List<CityNode> children;
-    private List<Cargo> cargos;
+    private ArrayList<Cargo> cargos;
+    private CityNode parent;
+    private CityTree tree; // Tree whose registry this node belongs to
 
     public CityNode(String cityName, int cityId) {
         this.cityName = cityName;
@@ -30,20 +34,62 @@ public class CityNode {
         return children;
     }
 
+    // Read-only: cargos are added and removed through addCargo/removeCargo to keep their slots valid
     public List<Cargo> getCargos() {
-        return cargos;
+        return Collections.unmodifiableList(cargos);
     }
 
 
+    public CityNode getParent() {
+        return parent;
+    }
+
     public void addChild(CityNode child) {
         child.setDepth(this.depth + 1); // Depth, one more than the depth of the parent
+        child.parent = this;
         this.children.add(child);
+
+        // Keep the registry of the owning tree up to date
+        if (tree != null) {
+            tree.register(child);
+        }
     }
 
     public void addCargo(Cargo cargo) {
+        if (cargo.getCityNode() == this) {
+            return;
+        }
+        // A cargo belongs to one city at a time
+        if (cargo.getCityNode() != null) {
+            cargo.getCityNode().removeCargo(cargo);
+        }
+        cargo.setCityLocation(this, cargos.size());
         this.cargos.add(cargo);
     }
 
+    // Attach a batch of cargos in one pass
+    public void addCargos(Collection<Cargo> batch) {
+        cargos.ensureCapacity(cargos.size() + batch.size());
+        for (Cargo cargo : batch) {
+            addCargo(cargo);
+        }
+    }
+
+    // Remove cargo in O(1) by moving the last cargo into its slot
+    public boolean removeCargo(Cargo cargo) {
+        if (cargo.getCityNode() != this) {
+            return false;
+        }
+        int slot = cargo.getCitySlot();
+        Cargo last = cargos.remove(cargos.size() - 1);
+        if (last != cargo) {
+            cargos.set(slot, last);
+            last.setCityLocation(this, slot);
+        }
+        cargo.setCityLocation(null, -1);
+        return true;
+    }
+
     public int getDepth() {
         return depth;
     }
@@ -51,4 +97,12 @@ public class CityNode {
     public void setDepth(int depth) {
         this.depth = depth;
     }
+
+    CityTree getTree() {
+        return tree;
+    }
+
+    void setTree(CityTree tree) {
+        this.tree = tree;
+    }
 }
@@ -1,54 +1,216 @@
 package model;
 
-public class CityTree {
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CityTree {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int DENSE_MIN_LIMIT = 1 << 16; // IDs below this always go to the array
+    private static final int DENSE_FACTOR = 4; // Otherwise the array stays within 4 slots per city
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
     private CityNode root;
 
+    // City registry: cityId -> node. Dense array for the usual small IDs (O(1) lookup),
+    // a map for IDs too large to index an array with, so a few huge IDs cannot blow up memory
+    private CityNode[] citiesById;
+    private final Map<Integer, CityNode> sparseCitiesById = new HashMap<>();
+    private int cityCount;
+    private volatile int version; // Changes whenever cities are added, read by other threads without the lock
+    private volatile CityLca lca; // Rebuilt on first use after the tree changed
+    private volatile FlatCityTree flat; // Rebuilt on first use after the tree changed
+
     public CityTree(CityNode root) {
         this.root = root;
+        this.citiesById = new CityNode[INITIAL_CAPACITY];
+        if (root != null) {
+            register(root);
+        }
     }
 
     public CityNode getRoot() {
         return root;
     }
 
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    // Lets structures derived from the tree layout notice that they are out of date
+    public int getVersion() {
+        return version;
+    }
+
+    // Find city by ID in O(1) using the registry
+    public CityNode findCityById(int cityId) {
+        if (cityId < 0) {
+            return null;
+        }
+        if (cityId < citiesById.length && citiesById[cityId] != null) {
+            return citiesById[cityId];
+        }
+        return sparseCitiesById.isEmpty() ? null : sparseCitiesById.get(cityId);
+    }
+
+    // Find city by ID inside the subtree of currentNode
     public CityNode findCityById(CityNode currentNode, int cityId) {
         if (currentNode == null) {
             return null;
         }
 
-        if (currentNode.getCityId() == cityId) {
-            return currentNode;
+        CityNode city = findCityById(cityId);
+        if (currentNode == root) {
+            return city;
         }
 
-        for (CityNode child : currentNode.getChildren()) {
-            CityNode result = findCityById(child, cityId);
-            if (result != null) {
-                return result;
+        // Walk up the parents to check that the city is under currentNode
+        for (CityNode node = city; node != null; node = node.getParent()) {
+            if (node == currentNode) {
+                return city;
             }
         }
-
         return null;
     }
 
+    // Top-level region of a city: the child of the root it lies under (the root is its own region)
+    public CityNode getRegion(CityNode city) {
+        if (city == null) {
+            return null;
+        }
+        CityNode node = city;
+        while (node.getParent() != null && node.getParent() != root) {
+            node = node.getParent();
+        }
+        return node;
+    }
+
+    // Deepest city that has both cities in its subtree, or null if either is not in the tree.
+    // Time complexity O(1) (O(n log n) once after the tree changed)
+    public CityNode findCommonAncestor(CityNode a, CityNode b) {
+        CityLca current = lca();
+        return current.contains(a) && current.contains(b) ? current.lca(a, b) : null;
+    }
+
+    // Number of hops between two cities, or -1 if either is not in the tree. Time complexity O(1)
+    public int getDistance(CityNode a, CityNode b) {
+        CityLca current = lca();
+        return current.contains(a) && current.contains(b) ? current.distance(a, b) : -1;
+    }
+
+    public int getDistance(int fromCityId, int toCityId) {
+        return getDistance(findCityById(fromCityId), findCityById(toCityId));
+    }
+
+    // Cities on the way from a to b (both included), or an empty list if either is not in the tree
+    public List<CityNode> getPath(CityNode a, CityNode b) {
+        CityLca current = lca();
+        return current.contains(a) && current.contains(b) ? current.path(a, b) : List.of();
+    }
+
+    public List<CityNode> getPath(int fromCityId, int toCityId) {
+        return getPath(findCityById(fromCityId), findCityById(toCityId));
+    }
+
+    // Preorder array form of the current tree. Built in O(n) on first use after a change, then shared
+    public FlatCityTree flatten() {
+        FlatCityTree current = flat;
+        if (current == null || current.version != version) {
+            synchronized (this) {
+                current = flat;
+                if (current == null || current.version != version) {
+                    current = new FlatCityTree(root, version);
+                    flat = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private CityLca lca() {
+        CityLca current = lca;
+        if (current == null || current.version != version) {
+            synchronized (this) {
+                current = lca;
+                if (current == null || current.version != version) {
+                    current = new CityLca(flatten());
+                    lca = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Add the node and all of its descendants to the registry (iterative, no recursion depth limit)
+    void register(CityNode subtreeRoot) {
+        Deque<CityNode> stack = new ArrayDeque<>();
+        stack.push(subtreeRoot);
+        version++;
+
+        while (!stack.isEmpty()) {
+            CityNode node = stack.pop();
+            node.setTree(this);
+
+            int cityId = node.getCityId();
+            if (cityId >= 0) {
+                // The first registered node wins, as with the old depth-first search
+                if (findCityById(cityId) == null) {
+                    if (fitsDense(cityId)) {
+                        ensureCapacity(cityId + 1);
+                        citiesById[cityId] = node;
+                    } else {
+                        sparseCitiesById.put(cityId, node);
+                    }
+                    cityCount++;
+                }
+            } else {
+                System.out.println("Geçersiz şehir ID'si: " + cityId);
+            }
+
+            for (CityNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+    }
+
+    private boolean fitsDense(int cityId) {
+        return cityId < citiesById.length
+                || (cityId < MAX_ARRAY_SIZE && cityId < Math.max(DENSE_MIN_LIMIT, DENSE_FACTOR * (cityCount + 1L)));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > citiesById.length) {
+            long limit = Math.max(DENSE_MIN_LIMIT, DENSE_FACTOR * (cityCount + 1L));
+            citiesById = Arrays.copyOf(citiesById, (int) Math.max(capacity, Math.min(citiesById.length * 2L, limit)));
+        }
+    }
+
+    // Iterative over the flattened tree, so deep hierarchies cannot overflow the stack
     public void printTree(CityNode currentNode, int depth) {
         if (currentNode == null) {
             return;
         }
-
-        // Print the current node
-        System.out.println("-".repeat(depth) + " " + currentNode.getCityName() + " (ID: " + currentNode.getCityId() + ")");
-        for (Cargo cargo : currentNode.getCargos()) {
-            System.out.println(" ".repeat(depth + 2) + "* Kargo ID: " + cargo.getId() + ", Durum: " + cargo.getStatus());
+        FlatCityTree tree = flatten();
+        int start = tree.positionOf(currentNode);
+        if (start == FlatCityTree.NONE) {
+            return;
         }
 
-        // Print child nodes
-        for (CityNode child : currentNode.getChildren()) {
-            printTree(child, depth + 2);
-        }
+        int baseDepth = tree.depth(start);
+        tree.forEachInSubtree(start, (pos, city, cityDepth) -> {
+            int indent = depth + 2 * (cityDepth - baseDepth);
+            System.out.println("-".repeat(indent) + " " + city.getCityName() + " (ID: " + city.getCityId() + ")");
+            for (Cargo cargo : city.getCargos()) {
+                System.out.println(" ".repeat(indent + 2) + "* Kargo ID: " + cargo.getId() + ", Durum: " + cargo.getStatus());
+            }
+        });
     }
 
     public void addCargoToCity(int cityId, Cargo cargo) {
-        CityNode city = findCityById(root, cityId);
+        CityNode city = findCityById(cityId);
         if (city != null) {
             city.addCargo(cargo);
         } else {
@@ -1,28 +1,30 @@
 package model;
 
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Stack;
 
 public class Client {
     private int id;
     private String name;
     private String surname;
-    private LinkedList<Cargo> cargoHistory;
+    private CargoHistory cargoHistory;
 
     public Client(int id, String name, String surname) {
         this.id = id;
         this.name = name;
         this.surname = surname;
-        this.cargoHistory = new LinkedList<>();
+        this.cargoHistory = new CargoHistory();
     }
 
     public void addCargoToClient(Cargo cargo) {
-        // Insert in reverse order by date (new dates first)
-        int index = 0;
-        while (index < cargoHistory.size() && cargoHistory.get(index).getDate().before(cargo.getDate())) {
-            index++;
-        }
-        cargoHistory.add(index, cargo);
+        // Insert in order by date (skip list, O(log n))
+        cargoHistory.add(cargo);
+    }
+
+    // Merge a batch of shipments into the history in one pass
+    public void addCargosToClient(Collection<Cargo> cargos) {
+        cargoHistory.addAll(cargos);
     }
 
     // Querying the last 5 shipments with stack
@@ -35,10 +37,10 @@ public class Client {
         // Creating a stack
         Stack<Cargo> stack = new Stack<>();
 
-        // Add the last 5 cargoes to the stack
-        int startIndex = Math.max(0, cargoHistory.size() - 5);
-        for (int i = startIndex; i < cargoHistory.size(); i++) {
-            stack.push(cargoHistory.get(i)); // Son 5 kargoyu stack'e ekle
+        // Add the last 5 cargoes to the stack (oldest of them first)
+        List<Cargo> latest = cargoHistory.getLatest(5);
+        for (int i = latest.size() - 1; i >= 0; i--) {
+            stack.push(latest.get(i)); // Son 5 kargoyu stack'e ekle
         }
 
         // Print the crows in the stack on the screen
@@ -72,12 +74,12 @@ public class Client {
         this.surname = surname;
     }
 
-    public LinkedList<Cargo> getCargoHistory() {
+    public CargoHistory getCargoHistory() {
         return cargoHistory;
     }
 
-    public void setCargoHistory(LinkedList<Cargo> cargoHistory) {
-        this.cargoHistory = cargoHistory;
+    public void setCargoHistory(List<Cargo> cargoHistory) {
+        this.cargoHistory = new CargoHistory(cargoHistory);
     }
 
     @Override
@@ -0,0 +1,166 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable snapshot of a CityTree in preorder, stored in parallel int arrays.
+// Position 0 is the root and every subtree is the contiguous range [i, subtreeEnd(i)],
+// so whole-tree and subtree scans are plain loops over arrays, with no recursion and no pointer chasing.
+// Children of i are firstChild(i), nextSibling(firstChild(i)), ... (-1 ends the chain).
+public final class FlatCityTree {
+    public static final int NONE = -1;
+
+    private final CityNode[] nodes;
+    private final int[] cityIds;
+    private final int[] parents;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] depths;
+    private final int[] subtreeEnds;
+    private final Map<CityNode, Integer> positions;
+    final int version;
+
+    FlatCityTree(CityNode root, int version) {
+        this.version = version;
+
+        // Count the nodes first so every array is allocated once
+        int n = 0;
+        Deque<CityNode> stack = new ArrayDeque<>();
+        if (root != null) {
+            stack.push(root);
+        }
+        while (!stack.isEmpty()) {
+            CityNode node = stack.pop();
+            n++;
+            for (CityNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+
+        nodes = new CityNode[n];
+        cityIds = new int[n];
+        parents = new int[n];
+        firstChildren = new int[n];
+        nextSiblings = new int[n];
+        depths = new int[n];
+        subtreeEnds = new int[n];
+        positions = new IdentityHashMap<>(n);
+        Arrays.fill(firstChildren, NONE);
+        Arrays.fill(nextSiblings, NONE);
+
+        // Preorder with an explicit stack; children are pushed in reverse so they come out in list order
+        CityNode[] stackNodes = new CityNode[n];
+        int[] stackParents = new int[n];
+        int top = 0;
+        if (root != null) {
+            stackNodes[0] = root;
+            stackParents[0] = NONE;
+            top = 1;
+        }
+        int[] lastChild = new int[n];
+        Arrays.fill(lastChild, NONE);
+        int pos = 0;
+        while (top > 0) {
+            top--;
+            CityNode node = stackNodes[top];
+            int parent = stackParents[top];
+            stackNodes[top] = null;
+
+            nodes[pos] = node;
+            cityIds[pos] = node.getCityId();
+            parents[pos] = parent;
+            depths[pos] = parent == NONE ? 0 : depths[parent] + 1;
+            subtreeEnds[pos] = pos;
+            positions.put(node, pos);
+            if (parent != NONE) {
+                if (lastChild[parent] == NONE) {
+                    firstChildren[parent] = pos;
+                } else {
+                    nextSiblings[lastChild[parent]] = pos;
+                }
+                lastChild[parent] = pos;
+            }
+
+            List<CityNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stackNodes[top] = children.get(i);
+                stackParents[top] = pos;
+                top++;
+            }
+            pos++;
+        }
+
+        // A child comes after its parent, so walking backwards completes each subtree before its parent
+        for (int i = n - 1; i > 0; i--) {
+            int parent = parents[i];
+            if (subtreeEnds[i] > subtreeEnds[parent]) {
+                subtreeEnds[parent] = subtreeEnds[i];
+            }
+        }
+    }
+
+    // Number of cities, including ones whose ID is shared with another city
+    public int size() {
+        return nodes.length;
+    }
+
+    // Position of the city, or NONE if it is not in the tree
+    public int positionOf(CityNode city) {
+        Integer pos = positions.get(city);
+        return pos == null ? NONE : pos;
+    }
+
+    public CityNode node(int pos) {
+        return nodes[pos];
+    }
+
+    public int cityId(int pos) {
+        return cityIds[pos];
+    }
+
+    public int parent(int pos) {
+        return parents[pos];
+    }
+
+    public int firstChild(int pos) {
+        return firstChildren[pos];
+    }
+
+    public int nextSibling(int pos) {
+        return nextSiblings[pos];
+    }
+
+    public int depth(int pos) {
+        return depths[pos];
+    }
+
+    // Last position of the subtree that starts at pos
+    public int subtreeEnd(int pos) {
+        return subtreeEnds[pos];
+    }
+
+    public int subtreeSize(int pos) {
+        return subtreeEnds[pos] - pos + 1;
+    }
+
+    public interface Visitor {
+        void visit(int pos, CityNode city, int depth);
+    }
+
+    // Visit the subtree of pos in preorder (parents before children). Iterative
+    public void forEachInSubtree(int pos, Visitor visitor) {
+        for (int i = pos, end = subtreeEnds[pos]; i <= end; i++) {
+            visitor.visit(i, nodes[i], depths[i]);
+        }
+    }
+
+    public void forEach(Visitor visitor) {
+        if (nodes.length > 0) {
+            forEachInSubtree(0, visitor);
+        }
+    }
+}
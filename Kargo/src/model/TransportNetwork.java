@@ -0,0 +1,255 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+// Weighted transport links between cities (roads, flights, ...), next to the CityTree hierarchy.
+// Cities are numbered 0 .. n-1 in ascending ID order (indexOf / cityId convert), so the arrays stay
+// as large as the number of cities whatever the IDs are. Stored in compressed sparse row form: the links
+// leaving city c are targets[offsets[c] .. offsets[c + 1] - 1] with the matching costs, all in primitive arrays.
+// Costs are whole numbers in delivery days. Built once with a Builder and never changed.
+public final class TransportNetwork {
+    public static final int NONE = -1;
+
+    private final int[] cityIds; // City ID of each index, ascending
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] costs;
+    private final double[] xs; // Optional coordinates for the A* estimate, NaN if unknown
+    private final double[] ys;
+    private final double costPerDistance; // Lowest cost per unit of straight-line distance over all links, 0 if unknown
+
+    private TransportNetwork(int[] cityIds, int[] offsets, int[] targets, int[] costs, double[] xs, double[] ys,
+                             double costPerDistance) {
+        this.cityIds = cityIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+        this.xs = xs;
+        this.ys = ys;
+        this.costPerDistance = costPerDistance;
+    }
+
+    // One link per parent-child edge with cost 1, so routes give the same times as the tree
+    public static TransportNetwork fromTree(CityTree cityTree) {
+        Builder builder = new Builder();
+        Deque<CityNode> stack = new ArrayDeque<>();
+        if (cityTree.getRoot() != null) {
+            stack.push(cityTree.getRoot());
+        }
+        while (!stack.isEmpty()) {
+            CityNode node = stack.pop();
+            builder.addCity(node.getCityId());
+            for (CityNode child : node.getChildren()) {
+                builder.addRoad(node.getCityId(), child.getCityId(), 1);
+                stack.push(child);
+            }
+        }
+        return builder.build();
+    }
+
+    public int getCityCount() {
+        return cityIds.length;
+    }
+
+    public int getLinkCount() {
+        return targets.length;
+    }
+
+    public boolean contains(int cityId) {
+        return indexOf(cityId) != NONE;
+    }
+
+    // Index of the city, or NONE if it is not in the network. Time complexity O(log n)
+    public int indexOf(int cityId) {
+        int index = Arrays.binarySearch(cityIds, cityId);
+        return index >= 0 ? index : NONE;
+    }
+
+    public int cityId(int index) {
+        return cityIds[index];
+    }
+
+    // Links of the city with the given index, and the index of the city each one leads to
+    public int firstLink(int index) {
+        return offsets[index];
+    }
+
+    public int endLink(int index) {
+        return offsets[index + 1];
+    }
+
+    public int target(int link) {
+        return targets[link];
+    }
+
+    public int cost(int link) {
+        return costs[link];
+    }
+
+    // The same cities with every link turned around (costs to a city instead of from it)
+    public TransportNetwork reversed() {
+        int n = getCityCount();
+        int[] reversedOffsets = new int[n + 1];
+        for (int link = 0; link < targets.length; link++) {
+            reversedOffsets[targets[link] + 1]++;
+        }
+        for (int c = 0; c < n; c++) {
+            reversedOffsets[c + 1] += reversedOffsets[c];
+        }
+        int[] reversedTargets = new int[targets.length];
+        int[] reversedCosts = new int[targets.length];
+        int[] next = Arrays.copyOf(reversedOffsets, n);
+        for (int c = 0; c < n; c++) {
+            for (int link = offsets[c]; link < offsets[c + 1]; link++) {
+                int slot = next[targets[link]]++;
+                reversedTargets[slot] = c;
+                reversedCosts[slot] = costs[link];
+            }
+        }
+        return new TransportNetwork(cityIds, reversedOffsets, reversedTargets, reversedCosts, xs, ys, costPerDistance);
+    }
+
+    // Lower bound of the cost between the cities with the given indexes, 0 when there are no coordinates
+    public double estimate(int from, int to) {
+        if (costPerDistance == 0) {
+            return 0;
+        }
+        double dx = xs[from] - xs[to];
+        double dy = ys[from] - ys[to];
+        double estimate = costPerDistance * Math.sqrt(dx * dx + dy * dy);
+        return Double.isNaN(estimate) ? 0 : estimate;
+    }
+
+    public static final class Builder {
+        // Cities and links are collected by ID and renumbered once in build()
+        private int[] cities = new int[16];
+        private double[] cityXs = new double[16];
+        private double[] cityYs = new double[16];
+        private int cityCount;
+        private int[] froms = new int[16];
+        private int[] tos = new int[16];
+        private int[] linkCosts = new int[16];
+        private int linkCount;
+
+        public Builder addCity(int cityId) {
+            return addCity(cityId, Double.NaN, Double.NaN);
+        }
+
+        // Map position of the city. With positions for every city, routing uses A*
+        public Builder addCity(int cityId, double x, double y) {
+            checkCity(cityId);
+            if (cityCount == cities.length) {
+                cities = Arrays.copyOf(cities, cityCount * 2);
+                cityXs = Arrays.copyOf(cityXs, cityCount * 2);
+                cityYs = Arrays.copyOf(cityYs, cityCount * 2);
+            }
+            cities[cityCount] = cityId;
+            cityXs[cityCount] = x;
+            cityYs[cityCount] = y;
+            cityCount++;
+            return this;
+        }
+
+        // One-way link
+        public Builder addLink(int fromCityId, int toCityId, int cost) {
+            checkCity(fromCityId);
+            checkCity(toCityId);
+            if (cost < 0) {
+                throw new IllegalArgumentException("Bağlantı maliyeti negatif olamaz: " + cost);
+            }
+            if (linkCount == froms.length) {
+                froms = Arrays.copyOf(froms, linkCount * 2);
+                tos = Arrays.copyOf(tos, linkCount * 2);
+                linkCosts = Arrays.copyOf(linkCosts, linkCount * 2);
+            }
+            froms[linkCount] = fromCityId;
+            tos[linkCount] = toCityId;
+            linkCosts[linkCount] = cost;
+            linkCount++;
+            return this;
+        }
+
+        // Link in both directions
+        public Builder addRoad(int cityA, int cityB, int cost) {
+            addLink(cityA, cityB, cost);
+            return addLink(cityB, cityA, cost);
+        }
+
+        public TransportNetwork build() {
+            // Every city that was added or appears on a link, sorted and without repeats
+            int[] ids = new int[cityCount + 2 * linkCount];
+            System.arraycopy(cities, 0, ids, 0, cityCount);
+            System.arraycopy(froms, 0, ids, cityCount, linkCount);
+            System.arraycopy(tos, 0, ids, cityCount + linkCount, linkCount);
+            Arrays.sort(ids);
+            int n = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (n == 0 || ids[n - 1] != ids[i]) {
+                    ids[n++] = ids[i];
+                }
+            }
+            int[] cityIds = Arrays.copyOf(ids, n);
+
+            // A later position for the same city replaces an earlier one
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            Arrays.fill(xs, Double.NaN);
+            Arrays.fill(ys, Double.NaN);
+            for (int i = 0; i < cityCount; i++) {
+                if (!Double.isNaN(cityXs[i]) || !Double.isNaN(cityYs[i])) {
+                    int index = Arrays.binarySearch(cityIds, cities[i]);
+                    xs[index] = cityXs[i];
+                    ys[index] = cityYs[i];
+                }
+            }
+
+            int[] fromIndexes = new int[linkCount];
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < linkCount; i++) {
+                fromIndexes[i] = Arrays.binarySearch(cityIds, froms[i]);
+                offsets[fromIndexes[i] + 1]++;
+            }
+            for (int c = 0; c < n; c++) {
+                offsets[c + 1] += offsets[c];
+            }
+            int[] targets = new int[linkCount];
+            int[] costs = new int[linkCount];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < linkCount; i++) {
+                int slot = next[fromIndexes[i]]++;
+                targets[slot] = Arrays.binarySearch(cityIds, tos[i]);
+                costs[slot] = linkCosts[i];
+            }
+            return new TransportNetwork(cityIds, offsets, targets, costs, xs, ys,
+                    costPerDistance(offsets, targets, costs, xs, ys));
+        }
+
+        // The estimate never exceeds the real cost, because no link is cheaper per unit of distance
+        private static double costPerDistance(int[] offsets, int[] targets, int[] costs, double[] xs, double[] ys) {
+            double ratio = Double.POSITIVE_INFINITY;
+            for (int c = 0; c + 1 < offsets.length; c++) {
+                for (int link = offsets[c]; link < offsets[c + 1]; link++) {
+                    int t = targets[link];
+                    double dx = xs[c] - xs[t];
+                    double dy = ys[c] - ys[t];
+                    double length = Math.sqrt(dx * dx + dy * dy);
+                    if (Double.isNaN(length)) {
+                        return 0; // A city on a link has no position
+                    }
+                    if (length > 0) {
+                        ratio = Math.min(ratio, costs[link] / length);
+                    }
+                }
+            }
+            return Double.isInfinite(ratio) ? 0 : ratio;
+        }
+
+        private static void checkCity(int cityId) {
+            if (cityId < 0) {
+                throw new IllegalArgumentException("Geçersiz şehir ID'si: " + cityId);
+            }
+        }
+    }
+}
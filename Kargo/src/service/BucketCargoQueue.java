@@ -0,0 +1,237 @@
+package service;
+
+import model.Cargo;
+
+import java.util.Arrays;
+
+// Bucket (calendar) queue for small non-negative delivery times.
+// One FIFO ring per delivery time and a bitmask of non-empty buckets:
+// O(1) offer and poll, FIFO order among cargos with the same delivery time.
+// Queued cargos live in slots found through an IntIntMap (cargo ID -> slot), and the rings hold packed
+// longs (generation << 32 | slot), so offer, poll and remove neither box the ID nor allocate an entry.
+// Cancelled and reprioritized cargos are removed lazily: changing a slot bumps its generation, older
+// entries stay in their bucket and are skipped when they reach the front
+public class BucketCargoQueue implements CargoQueue {
+    private static final int INITIAL_BUCKETS = 64;
+    private static final int INITIAL_SLOTS = 16;
+    private static final int INITIAL_RING = 8;
+
+    private long[][] rings;   // Entries of each bucket, a ring buffer with a power of two length
+    private int[] heads;      // Index of the first entry of each ring
+    private int[] counts;     // Number of entries of each ring
+    private long[] nonEmpty;  // Bit i is set when bucket i has entries
+
+    private final IntIntMap slotOf = new IntIntMap(); // Cargo ID -> slot
+    private Cargo[] cargos = new Cargo[INITIAL_SLOTS];
+    private int[] generations = new int[INITIAL_SLOTS]; // Only the entry with the current generation is live
+    private int[] freeSlots = new int[INITIAL_SLOTS];
+    private int freeCount;
+    private int slotCount; // Slots handed out so far
+    private int stale; // Entries in the buckets that are no longer live
+
+    public BucketCargoQueue() {
+        this(INITIAL_BUCKETS);
+    }
+
+    public BucketCargoQueue(int maxDeliveryTime) {
+        allocate(Math.max(maxDeliveryTime + 1, 1));
+    }
+
+    @Override
+    public void offer(Cargo cargo) {
+        int time = cargo.getDeliveryTime();
+        checkTime(time);
+        if (slotOf.get(cargo.getId()) >= 0) {
+            throw new IllegalArgumentException("Kargo zaten kuyrukta: ID=" + cargo.getId());
+        }
+        int slot = takeSlot();
+        cargos[slot] = cargo;
+        slotOf.put(cargo.getId(), slot);
+        append(time, slot);
+    }
+
+    @Override
+    public Cargo poll() {
+        int time = frontTime();
+        if (time < 0) {
+            return null;
+        }
+        int slot = (int) pollFirst(time);
+        Cargo cargo = cargos[slot];
+        releaseSlot(slot);
+        return cargo;
+    }
+
+    @Override
+    public Cargo peek() {
+        int time = frontTime();
+        return time < 0 ? null : cargos[(int) rings[time][heads[time]]];
+    }
+
+    @Override
+    public int size() {
+        return slotOf.size();
+    }
+
+    // The entry stays in its bucket until it reaches the front. Time complexity O(1)
+    @Override
+    public Cargo remove(int cargoId) {
+        int slot = slotOf.get(cargoId);
+        if (slot < 0) {
+            return null;
+        }
+        Cargo cargo = cargos[slot];
+        releaseSlot(slot);
+        markStale();
+        return cargo;
+    }
+
+    // Appends a new entry to the new bucket and leaves the old one behind. Time complexity O(1)
+    @Override
+    public boolean updateDeliveryTime(int cargoId, int newDeliveryTime) {
+        checkTime(newDeliveryTime);
+        int slot = slotOf.get(cargoId);
+        if (slot < 0) {
+            return false;
+        }
+        cargos[slot].setDeliveryTime(newDeliveryTime);
+        generations[slot]++;
+        append(newDeliveryTime, slot);
+        markStale();
+        return true;
+    }
+
+    private int takeSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == cargos.length) {
+            int capacity = slotCount * 2;
+            cargos = Arrays.copyOf(cargos, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+        return slotCount++;
+    }
+
+    // The new generation turns every entry still pointing at the slot stale
+    private void releaseSlot(int slot) {
+        slotOf.remove(cargos[slot].getId());
+        cargos[slot] = null;
+        generations[slot]++;
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void append(int time, int slot) {
+        if (time >= rings.length) {
+            allocate(Math.max(time + 1, rings.length * 2));
+        }
+
+        long[] ring = rings[time];
+        if (ring == null) {
+            ring = new long[INITIAL_RING];
+            rings[time] = ring;
+        } else if (counts[time] == ring.length) {
+            // Unroll the full ring into a twice as large one
+            long[] grown = new long[ring.length * 2];
+            int head = heads[time];
+            System.arraycopy(ring, head, grown, 0, ring.length - head);
+            System.arraycopy(ring, 0, grown, ring.length - head, head);
+            ring = grown;
+            rings[time] = ring;
+            heads[time] = 0;
+        }
+        ring[(heads[time] + counts[time]) & (ring.length - 1)] = ((long) generations[slot] << 32) | slot;
+        counts[time]++;
+        nonEmpty[time >>> 6] |= 1L << time;
+    }
+
+    private long pollFirst(int time) {
+        long[] ring = rings[time];
+        long entry = ring[heads[time]];
+        heads[time] = (heads[time] + 1) & (ring.length - 1);
+        if (--counts[time] == 0) {
+            heads[time] = 0;
+            nonEmpty[time >>> 6] &= ~(1L << time);
+        }
+        return entry;
+    }
+
+    private boolean isLive(long entry) {
+        return generations[(int) entry] == (int) (entry >>> 32);
+    }
+
+    // Bucket of the first live entry, dropping the stale ones in front of it, or -1 if the queue is empty
+    private int frontTime() {
+        int time;
+        while ((time = firstNonEmpty()) >= 0) {
+            if (isLive(rings[time][heads[time]])) {
+                return time;
+            }
+            pollFirst(time);
+            stale--;
+        }
+        return -1;
+    }
+
+    // Drop the stale entries once they outnumber the live ones, so memory stays O(size)
+    private void markStale() {
+        if (++stale <= slotOf.size() + 64) {
+            return;
+        }
+        for (int time = 0; time < rings.length; time++) {
+            long[] ring = rings[time];
+            if (ring == null || counts[time] == 0) {
+                continue;
+            }
+            // Keep the live entries in order, packed from the head
+            int mask = ring.length - 1;
+            int kept = 0;
+            for (int i = 0, head = heads[time], n = counts[time]; i < n; i++) {
+                long entry = ring[(head + i) & mask];
+                if (isLive(entry)) {
+                    // Written positions never pass the ones still to be read
+                    ring[(head + kept) & mask] = entry;
+                    kept++;
+                }
+            }
+            counts[time] = kept;
+            if (kept == 0) {
+                heads[time] = 0;
+                nonEmpty[time >>> 6] &= ~(1L << time);
+            }
+        }
+        stale = 0;
+    }
+
+    // Smallest delivery time with entries, or -1 if the queue is empty
+    private int firstNonEmpty() {
+        for (int word = 0; word < nonEmpty.length; word++) {
+            if (nonEmpty[word] != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(nonEmpty[word]);
+            }
+        }
+        return -1;
+    }
+
+    private static void checkTime(int time) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Teslimat süresi negatif olamaz: " + time);
+        }
+    }
+
+    private void allocate(int bucketCount) {
+        int capacity = ((bucketCount + 63) >>> 6) << 6;
+        if (rings == null) {
+            rings = new long[capacity][];
+            heads = new int[capacity];
+            counts = new int[capacity];
+            nonEmpty = new long[capacity >>> 6];
+        } else {
+            rings = Arrays.copyOf(rings, capacity);
+            heads = Arrays.copyOf(heads, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            nonEmpty = Arrays.copyOf(nonEmpty, capacity >>> 6);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package service;
+
+import model.Cargo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of CargoManager.addCargos: accepted cargos and the ones rejected with their reason
+public class BulkAddResult {
+    public enum RejectReason {
+        UNKNOWN_CITY, MISSING_CLIENT, DUPLICATE_ID
+    }
+
+    public static class Reject {
+        private final Cargo cargo;
+        private final RejectReason reason;
+
+        public Reject(Cargo cargo, RejectReason reason) {
+            this.cargo = cargo;
+            this.reason = reason;
+        }
+
+        public Cargo getCargo() {
+            return cargo;
+        }
+
+        public RejectReason getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Reject{" +
+                    "cargoId=" + cargo.getId() +
+                    ", reason=" + reason +
+                    '}';
+        }
+    }
+
+    private final List<Cargo> accepted = new ArrayList<>();
+    private final List<Reject> rejects = new ArrayList<>();
+
+    void accept(Cargo cargo) {
+        accepted.add(cargo);
+    }
+
+    void reject(Cargo cargo, RejectReason reason) {
+        rejects.add(new Reject(cargo, reason));
+    }
+
+    public List<Cargo> getAccepted() {
+        return Collections.unmodifiableList(accepted);
+    }
+
+    public List<Reject> getRejects() {
+        return Collections.unmodifiableList(rejects);
+    }
+
+    public int getAcceptedCount() {
+        return accepted.size();
+    }
+
+    public int getRejectedCount() {
+        return rejects.size();
+    }
+}
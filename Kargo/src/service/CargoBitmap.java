@@ -0,0 +1,724 @@
+package service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+// Compressed bitmap of cargo IDs in the style of Roaring bitmaps.
+// IDs are split by their high 16 bits into chunks. A chunk with few IDs is a sorted char array,
+// a dense chunk is a 65536-bit bitmap. Counts, intersections and unions work chunk by chunk,
+// so their cost follows the compressed size, not the number of cargos.
+public class CargoBitmap {
+    private static final int ARRAY_LIMIT = 4096; // Above this an array chunk is larger than a bitmap chunk
+
+    private char[] keys = new char[4];             // High 16 bits of the IDs, sorted
+    private Container[] containers = new Container[4];
+    private int containerCount;
+    private int cardinality;
+
+    public boolean add(int id) {
+        char key = (char) (id >>> 16);
+        int index = findKey(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        container = container.add((char) id);
+        containers[index] = container;
+        if (container.cardinality() == before) {
+            return false;
+        }
+        cardinality++;
+        return true;
+    }
+
+    public boolean remove(int id) {
+        int index = findKey((char) (id >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        container = container.remove((char) id);
+        if (container.cardinality() == before) {
+            return false;
+        }
+        cardinality--;
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = container;
+        }
+        return true;
+    }
+
+    public boolean contains(int id) {
+        int index = findKey((char) (id >>> 16));
+        return index >= 0 && containers[index].contains((char) id);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    // IDs present in both bitmaps
+    public CargoBitmap and(CargoBitmap other) {
+        CargoBitmap result = new CargoBitmap();
+        int i = 0, j = 0;
+        while (i < containerCount && j < other.containerCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.appendContainer(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Number of IDs present in both bitmaps, without building the intersection
+    public int andCardinality(CargoBitmap other) {
+        int count = 0;
+        int i = 0, j = 0;
+        while (i < containerCount && j < other.containerCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                count += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    // IDs present in either bitmap
+    public CargoBitmap or(CargoBitmap other) {
+        CargoBitmap result = new CargoBitmap();
+        int i = 0, j = 0;
+        while (i < containerCount || j < other.containerCount) {
+            if (j == other.containerCount || (i < containerCount && keys[i] < other.keys[j])) {
+                result.appendContainer(keys[i], containers[i].copy());
+                i++;
+            } else if (i == containerCount || keys[i] > other.keys[j]) {
+                result.appendContainer(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // IDs present in any of the bitmaps. The chunks of all inputs are grouped by key with a counting
+    // sort over the keys that occur, and each group is merged once, instead of copying the growing
+    // result for every input as repeated or() would.
+    // Time complexity O(c + total size of the merged chunks) for c chunks
+    public static CargoBitmap union(Collection<CargoBitmap> bitmaps) {
+        // Mark the keys that occur; a key's rank among them is the index of its group
+        long[] present = new long[1024];
+        int total = 0;
+        for (CargoBitmap bitmap : bitmaps) {
+            for (int i = 0; i < bitmap.containerCount; i++) {
+                present[bitmap.keys[i] >>> 6] |= 1L << bitmap.keys[i];
+            }
+            total += bitmap.containerCount;
+        }
+        int[] rankBase = new int[1025];
+        for (int word = 0; word < 1024; word++) {
+            rankBase[word + 1] = rankBase[word] + Long.bitCount(present[word]);
+        }
+        int groups = rankBase[1024];
+
+        // Count the chunks per group, then place them so every group is one contiguous range
+        int[] groupStart = new int[groups + 1];
+        char[] groupKeys = new char[groups];
+        for (CargoBitmap bitmap : bitmaps) {
+            for (int i = 0; i < bitmap.containerCount; i++) {
+                int group = rank(present, rankBase, bitmap.keys[i]);
+                groupStart[group + 1]++;
+                groupKeys[group] = bitmap.keys[i];
+            }
+        }
+        for (int g = 0; g < groups; g++) {
+            groupStart[g + 1] += groupStart[g];
+        }
+        Container[] parts = new Container[total];
+        int[] next = Arrays.copyOf(groupStart, groups);
+        for (CargoBitmap bitmap : bitmaps) {
+            for (int i = 0; i < bitmap.containerCount; i++) {
+                parts[next[rank(present, rankBase, bitmap.keys[i])]++] = bitmap.containers[i];
+            }
+        }
+
+        CargoBitmap result = new CargoBitmap();
+        result.ensureCapacity(groups);
+        for (int g = 0; g < groups; g++) {
+            int from = groupStart[g];
+            int to = groupStart[g + 1];
+            Container merged = to - from == 1 ? parts[from].copy() : mergeChunks(parts, from, to);
+            result.appendContainer(groupKeys[g], merged);
+        }
+        return result;
+    }
+
+    // Number of marked keys below the key
+    private static int rank(long[] present, int[] rankBase, char key) {
+        return rankBase[key >>> 6] + Long.bitCount(present[key >>> 6] & ((1L << key) - 1));
+    }
+
+    // Union of the chunks parts[start..end), all with the same key
+    private static Container mergeChunks(Container[] parts, int start, int end) {
+        int total = 0;
+        boolean allArrays = true;
+        for (int i = start; i < end; i++) {
+            Container part = parts[i];
+            total += part.cardinality();
+            allArrays &= part instanceof ArrayContainer;
+        }
+        if (allArrays && total <= ARRAY_LIMIT) {
+            // Small result: concatenate, sort and drop the repeats
+            char[] values = new char[total];
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                ArrayContainer part = (ArrayContainer) parts[i];
+                System.arraycopy(part.values, 0, values, count, part.size);
+                count += part.size;
+            }
+            Arrays.sort(values);
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                if (size == 0 || values[size - 1] != values[i]) {
+                    values[size++] = values[i];
+                }
+            }
+            return new ArrayContainer(values, size);
+        }
+        long[] words = new long[1024];
+        for (int i = start; i < end; i++) {
+            parts[i].orInto(words);
+        }
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+        return cardinality > ARRAY_LIMIT ? bitmap : bitmap.toArray();
+    }
+
+    // Visit the IDs in unsigned ascending order
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    // Read the IDs one at a time in unsigned ascending order, nothing is copied up front.
+    // The bitmap must not change while the iterator is in use
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index;
+            private PrimitiveIterator.OfInt current;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (index == containerCount) {
+                        return false;
+                    }
+                    current = containers[index].iterator(keys[index] << 16);
+                    index++;
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.nextInt();
+            }
+        };
+    }
+
+    // Lazy stream over the IDs in unsigned ascending order
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliterator(iterator(), cardinality,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    // Negative IDs sort after the positive ones in unsigned order, so ascending order only holds without them
+    public boolean hasNegativeIds() {
+        return containerCount > 0 && keys[containerCount - 1] >= 0x8000;
+    }
+
+    public int[] toArray() {
+        int[] ids = new int[cardinality];
+        int[] next = {0};
+        forEach(id -> ids[next[0]++] = id);
+        return ids;
+    }
+
+    // Approximate size of the compressed data in bytes
+    public long sizeInBytes() {
+        long bytes = (long) containerCount * 2;
+        for (int i = 0; i < containerCount; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private int findKey(char key) {
+        int low = 0;
+        int high = containerCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else if (keys[mid] > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        ensureCapacity(containerCount + 1);
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerCount++;
+    }
+
+    // Used while building results, keys arrive in ascending order
+    private void appendContainer(char key, Container container) {
+        ensureCapacity(containerCount + 1);
+        keys[containerCount] = key;
+        containers[containerCount] = container;
+        containerCount++;
+        cardinality += container.cardinality();
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+        containers[--containerCount] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+    }
+
+    // One chunk of 65536 possible IDs. add/remove return the container to keep (it may change kind)
+    private abstract static class Container {
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract int andCardinality(Container other);
+
+        abstract Container or(Container other);
+
+        // Set the bits of this chunk in a 1024-word bitmap
+        abstract void orInto(long[] words);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer action);
+
+        abstract PrimitiveIterator.OfInt iterator(int high);
+
+        abstract long sizeInBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, values.length * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[size];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0, j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0, j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        count++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[size + array.size];
+            int count = 0;
+            int i = 0, j = 0;
+            while (i < size || j < array.size) {
+                if (j == array.size || (i < size && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == size || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer merged = new ArrayContainer(result, count);
+            return count > ARRAY_LIMIT ? merged.toBitmap() : merged;
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int high) {
+            return new PrimitiveIterator.OfInt() {
+                private int i;
+
+                @Override
+                public boolean hasNext() {
+                    return i < size;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (i >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return high | values[i++];
+                }
+            };
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 2L * size;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long mask = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & mask) == 0) {
+                words[word] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long mask = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & mask) != 0) {
+                words[word] &= ~mask;
+                cardinality--;
+                if (cardinality <= ARRAY_LIMIT) {
+                    return toArray();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count <= ARRAY_LIMIT ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                count += Long.bitCount(words[i] & otherWords[i]);
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            int count;
+            if (other instanceof ArrayContainer array) {
+                count = cardinality;
+                for (int i = 0; i < array.size; i++) {
+                    char value = array.values[i];
+                    long mask = 1L << value;
+                    if ((result[value >>> 6] & mask) == 0) {
+                        result[value >>> 6] |= mask;
+                        count++;
+                    }
+                }
+            } else {
+                long[] otherWords = ((BitmapContainer) other).words;
+                count = 0;
+                for (int i = 0; i < 1024; i++) {
+                    result[i] |= otherWords[i];
+                    count += Long.bitCount(result[i]);
+                }
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        void orInto(long[] target) {
+            for (int i = 0; i < 1024; i++) {
+                target[i] |= words[i];
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int high) {
+            return new PrimitiveIterator.OfInt() {
+                private int i = -1;
+                private long word;
+
+                @Override
+                public boolean hasNext() {
+                    while (word == 0) {
+                        if (i == 1023) {
+                            return false;
+                        }
+                        word = words[++i];
+                    }
+                    return true;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int id = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    return id;
+                }
+            };
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 8L * 1024;
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package service;
+
+import model.Cargo;
+import model.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Compressed bitmap indexes of cargo IDs by status and by city ID.
+// Query results are new bitmaps, so callers can combine them freely.
+// City bitmaps are numbered in the order cities first appear, so a huge city ID costs one map entry, not an array that size.
+public class CargoBitmapIndex {
+    private final Map<Status, CargoBitmap> byStatus = new EnumMap<>(Status.class);
+    private final IntIntMap citySlots = new IntIntMap(); // cityId -> index in byCity
+    private CargoBitmap[] byCity = new CargoBitmap[16];
+    private int cityCount;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CargoBitmapIndex() {
+        for (Status status : Status.values()) {
+            byStatus.put(status, new CargoBitmap());
+        }
+    }
+
+    public void add(Cargo cargo) {
+        add(cargo.getId(), cargo.getStatus(), cargo.getCityId());
+    }
+
+    public void add(int cargoId, Status status, int cityId) {
+        lock.writeLock().lock();
+        try {
+            if (status != null) {
+                byStatus.get(status).add(cargoId);
+            }
+            CargoBitmap city = cityBitmap(cityId, true);
+            if (city != null) {
+                city.add(cargoId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int cargoId, Status status, int cityId) {
+        lock.writeLock().lock();
+        try {
+            if (status != null) {
+                byStatus.get(status).remove(cargoId);
+            }
+            CargoBitmap city = cityBitmap(cityId, false);
+            if (city != null) {
+                city.remove(cargoId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void statusChanged(int cargoId, Status oldStatus, Status newStatus) {
+        lock.writeLock().lock();
+        try {
+            if (oldStatus != null) {
+                byStatus.get(oldStatus).remove(cargoId);
+            }
+            if (newStatus != null) {
+                byStatus.get(newStatus).add(cargoId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void cityChanged(int cargoId, int oldCityId, int newCityId) {
+        lock.writeLock().lock();
+        try {
+            CargoBitmap oldCity = cityBitmap(oldCityId, false);
+            if (oldCity != null) {
+                oldCity.remove(cargoId);
+            }
+            CargoBitmap newCity = cityBitmap(newCityId, true);
+            if (newCity != null) {
+                newCity.add(cargoId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int count(Status status) {
+        lock.readLock().lock();
+        try {
+            return byStatus.get(status).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countInCity(int cityId) {
+        lock.readLock().lock();
+        try {
+            CargoBitmap city = cityBitmap(cityId, false);
+            return city == null ? 0 : city.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // e.g. "how many ONDELIVERY shipments for city 4", without building the intersection
+    public int count(Status status, int cityId) {
+        lock.readLock().lock();
+        try {
+            CargoBitmap city = cityBitmap(cityId, false);
+            return city == null ? 0 : byStatus.get(status).andCardinality(city);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // IDs of cargos with any of the given statuses
+    public CargoBitmap withStatus(Status... statuses) {
+        lock.readLock().lock();
+        try {
+            List<CargoBitmap> parts = new ArrayList<>(statuses.length);
+            for (Status status : statuses) {
+                parts.add(byStatus.get(status));
+            }
+            return CargoBitmap.union(parts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // IDs of cargos in any of the given cities
+    public CargoBitmap inCities(int... cityIds) {
+        lock.readLock().lock();
+        try {
+            List<CargoBitmap> parts = new ArrayList<>(cityIds.length);
+            for (int cityId : cityIds) {
+                CargoBitmap city = cityBitmap(cityId, false);
+                if (city != null) {
+                    parts.add(city);
+                }
+            }
+            return CargoBitmap.union(parts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // IDs of every indexed cargo (each one has a city)
+    public CargoBitmap all() {
+        lock.readLock().lock();
+        try {
+            return CargoBitmap.union(Arrays.asList(byCity).subList(0, cityCount));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // IDs of cargos with the status in the city
+    public CargoBitmap withStatusInCity(Status status, int cityId) {
+        lock.readLock().lock();
+        try {
+            CargoBitmap city = cityBitmap(cityId, false);
+            return city == null ? new CargoBitmap() : byStatus.get(status).and(city);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CargoBitmap cityBitmap(int cityId, boolean create) {
+        if (cityId < 0) {
+            return null;
+        }
+        int slot = citySlots.get(cityId);
+        if (slot >= 0) {
+            return byCity[slot];
+        }
+        if (!create) {
+            return null;
+        }
+        if (cityCount == byCity.length) {
+            byCity = Arrays.copyOf(byCity, cityCount * 2);
+        }
+        CargoBitmap city = new CargoBitmap();
+        byCity[cityCount] = city;
+        citySlots.put(cityId, cityCount++);
+        return city;
+    }
+}
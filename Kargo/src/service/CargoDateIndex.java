@@ -0,0 +1,119 @@
+package service;
+
+import model.Cargo;
+import model.CargoDates;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Cargo IDs partitioned by shipment day (one compressed bitmap per epoch day).
+// A range query finds the first day in O(log d) and then only visits the days inside the range,
+// so "cargos created between D1 and D2" costs O(log d + k) instead of a scan over every cargo.
+public class CargoDateIndex {
+    private final NavigableMap<Integer, CargoBitmap> byDay = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(Cargo cargo) {
+        add(cargo.getId(), cargo.getDateMillis());
+    }
+
+    public void add(int cargoId, long dateMillis) {
+        int day = CargoDates.toEpochDay(dateMillis);
+        if (day == CargoDates.NO_DAY) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            byDay.computeIfAbsent(day, d -> new CargoBitmap()).add(cargoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int cargoId, long dateMillis) {
+        int day = CargoDates.toEpochDay(dateMillis);
+        if (day == CargoDates.NO_DAY) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            CargoBitmap bucket = byDay.get(day);
+            if (bucket != null && bucket.remove(cargoId) && bucket.isEmpty()) {
+                byDay.remove(day);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void dateChanged(int cargoId, long oldDateMillis, long newDateMillis) {
+        if (CargoDates.toEpochDay(oldDateMillis) != CargoDates.toEpochDay(newDateMillis)) {
+            remove(cargoId, oldDateMillis);
+            add(cargoId, newDateMillis);
+        }
+    }
+
+    // IDs of cargos created on the days fromDay..toDay (epoch days, both inclusive)
+    public CargoBitmap between(int fromDay, int toDay) {
+        lock.readLock().lock();
+        try {
+            if (fromDay > toDay) {
+                return new CargoBitmap();
+            }
+            return CargoBitmap.union(byDay.subMap(fromDay, true, toDay, true).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of cargos created on the days fromDay..toDay, without building a result
+    public int countBetween(int fromDay, int toDay) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            if (fromDay <= toDay) {
+                for (CargoBitmap bucket : byDay.subMap(fromDay, true, toDay, true).values()) {
+                    count += bucket.cardinality();
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // IDs day by day (oldest day first, IDs ascending within a day)
+    public int[] idsBetween(int fromDay, int toDay) {
+        lock.readLock().lock();
+        try {
+            if (fromDay > toDay) {
+                return new int[0];
+            }
+            NavigableMap<Integer, CargoBitmap> days = byDay.subMap(fromDay, true, toDay, true);
+            int count = 0;
+            for (CargoBitmap bucket : days.values()) {
+                count += bucket.cardinality();
+            }
+            int[] ids = new int[count];
+            int[] next = {0};
+            for (CargoBitmap bucket : days.values()) {
+                bucket.forEach(id -> ids[next[0]++] = id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of days that have at least one cargo
+    public int dayCount() {
+        lock.readLock().lock();
+        try {
+            return byDay.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package service;
+
+import model.Cargo;
+import model.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Combined status / city / date-range filter evaluated over primitive columns.
+// The result is a selection bitmap (bit i set = row i matches). When the JVM runs with
+// --add-modules jdk.incubator.vector the predicates use SIMD kernels, otherwise scalar loops.
+public class CargoFilter {
+    private static final FilterKernel KERNEL = loadKernel();
+
+    private Status status;       // null = any status
+    private int[] cityIds;       // null = any city
+    private long dateFrom = Long.MIN_VALUE;
+    private long dateTo = Long.MAX_VALUE;
+    private boolean dateFiltered;
+
+    // Field columns extracted once from a cargo list and reused for many filters
+    public static class Columns {
+        final byte[] statuses; // Status ordinal, -1 if unknown
+        final int[] cityIds;
+        final long[] dates;    // Epoch milliseconds, Long.MIN_VALUE if unknown
+        final int size;
+
+        public Columns(byte[] statuses, int[] cityIds, long[] dates) {
+            this.statuses = statuses;
+            this.cityIds = cityIds;
+            this.dates = dates;
+            this.size = statuses.length;
+        }
+
+        public static Columns of(List<Cargo> cargos) {
+            int n = cargos.size();
+            byte[] statuses = new byte[n];
+            int[] cityIds = new int[n];
+            long[] dates = new long[n];
+            int i = 0;
+            for (Cargo cargo : cargos) {
+                statuses[i] = cargo.getStatus() == null ? -1 : (byte) cargo.getStatus().ordinal();
+                cityIds[i] = cargo.getCityId();
+                dates[i] = cargo.getDateMillis();
+                i++;
+            }
+            return new Columns(statuses, cityIds, dates);
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    public CargoFilter status(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public CargoFilter cityIn(int... cityIds) {
+        this.cityIds = cityIds.clone();
+        return this;
+    }
+
+    // Inclusive bounds in epoch milliseconds
+    public CargoFilter dateBetween(long from, long to) {
+        this.dateFrom = from;
+        this.dateTo = to;
+        this.dateFiltered = true;
+        return this;
+    }
+
+    // Selection bitmap over the rows of the columns
+    public long[] select(Columns columns) {
+        return select(columns, KERNEL);
+    }
+
+    long[] select(Columns columns, FilterKernel kernel) {
+        long[] selection = new long[(columns.size + 63) >>> 6];
+        Arrays.fill(selection, -1L);
+        if (columns.size % 64 != 0) {
+            selection[selection.length - 1] = (1L << columns.size) - 1; // Clear bits past the last row
+        }
+        if (status != null) {
+            kernel.statusEquals(columns.statuses, (byte) status.ordinal(), selection);
+        }
+        if (cityIds != null) {
+            kernel.cityIn(columns.cityIds, cityIds, selection);
+        }
+        if (dateFiltered) {
+            kernel.dateBetween(columns.dates, dateFrom, dateTo, selection);
+        }
+        return selection;
+    }
+
+    // Matching cargos in list order
+    public List<Cargo> apply(List<Cargo> cargos) {
+        long[] selection = select(Columns.of(cargos));
+        List<Cargo> result = new ArrayList<>();
+        for (int word = 0; word < selection.length; word++) {
+            long bits = selection[word];
+            while (bits != 0) {
+                result.add(cargos.get((word << 6) + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    public static int count(long[] selection) {
+        int count = 0;
+        for (long word : selection) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // Name of the kernel in use, e.g. for logs
+    public static String kernelName() {
+        return KERNEL.getClass().getSimpleName();
+    }
+
+    private static FilterKernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (FilterKernel) Class.forName("service.VectorFilterKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println("Vector API kullanılamıyor, skaler filtre kullanılacak: " + e);
+            }
+        }
+        return new ScalarFilterKernel();
+    }
+}
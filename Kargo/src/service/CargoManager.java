@@ -2,31 +2,412 @@ package service;
 
 import model.*;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+// Safe for concurrent use once the city tree is built.
+// Lock order (always taken in this order, released in reverse):
+//   1. region stripe lock  - guards the CityNode cargo lists of one top-level region of the tree
+//   2. client stripe lock  - guards the cargo history of a client
+//   3. tracking lock       - guards the tracking index and the record store
+//   4. leaf locks          - the priority queue lock and the lock inside each secondary index (bitmap
+//                            index, ...); held only around a single call, no other lock is taken inside
+// Work on different regions and different clients runs in parallel.
 public class CargoManager {
+    private static final int LOCK_STRIPES = 64;
+    private static final int ROUTE_CACHE_SIZE = 4096;
+
     private final CargoPriorityQueue priorityQueue;
     private final CityTree cityTree;
+    private final CargoTrackingIndex trackingIndex;
+    private final CargoRecordStore cargoStore; // Compact records that have no Cargo object
+    private final CargoBitmapIndex bitmapIndex;
+    private final CargoDateIndex dateIndex;
+    private final SubtreeCargoCounts subtreeCounts;
+    private final OverdueMonitor overdueMonitor;
+    private final CargoStatusViews statusViews;
+    private final CargoChangeListener changeListener = new IndexUpdater();
+    private final ParallelCargoSorter parallelSorter = new ParallelCargoSorter();
+    private volatile RouteFinder routeFinder; // null until a transport network is set
+    private final RouteCache routeCache = new RouteCache(ROUTE_CACHE_SIZE, this::computeRoute);
+    private volatile int routeCacheTreeVersion;
+    private final ReadWriteLock trackingLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] regionLocks = newStripes();
+    private final ReentrantLock[] clientLocks = newStripes();
 
     public CargoManager(CityTree cityTree) {
+        this(cityTree, new IndexedCargoHeap());
+    }
+
+    // Use the given queue implementation for shipment priority
+    public CargoManager(CityTree cityTree, CargoQueue cargoQueue) {
+        this(cityTree, cargoQueue, new ColumnarCargoStore());
+    }
+
+    // Keep imported records in the given store, e.g. an OffHeapCargoArena for very large volumes
+    public CargoManager(CityTree cityTree, CargoQueue cargoQueue, CargoRecordStore cargoStore) {
         this.cityTree = cityTree;
-        this.priorityQueue = new CargoPriorityQueue(cityTree.getRoot());
+        this.priorityQueue = new CargoPriorityQueue(cityTree, cargoQueue);
+        this.trackingIndex = new CargoTrackingIndex();
+        this.cargoStore = cargoStore;
+        this.bitmapIndex = new CargoBitmapIndex();
+        this.dateIndex = new CargoDateIndex();
+        this.subtreeCounts = new SubtreeCargoCounts(cityTree);
+        this.overdueMonitor = new OverdueMonitor();
+        this.statusViews = new CargoStatusViews();
+        this.cargoStore.setChangeListener(changeListener);
+        this.cargoStore.setViewWriteLock(trackingLock.writeLock()); // importCargoRecord grows the columns under it
     }
 
-    // Add the cargo to the system
+    // Add the cargo to the system. Throws IllegalArgumentException if the city is unknown
+    // or the ID is already in use
     public void addCargo(Cargo cargo, int cityId, Client client) {
-        // Add to priority queue
-        priorityQueue.addCargo(cargo);
+        // Cities are never removed, so a city found here is still there below
+        CityNode city = cityTree.findCityById(cityId);
+        if (city == null) {
+            throw new IllegalArgumentException("Şehir bulunamadı: ID=" + cityId);
+        }
+
+        // Reserve the ID first, so a duplicate is rejected before any city list or index changes
+        trackingLock.writeLock().lock();
+        try {
+            // Cargo objects and imported records share one ID space
+            if (trackingIndex.contains(cargo.getId()) || cargoStore.findRow(cargo.getId()) >= 0) {
+                throw new IllegalArgumentException("Kargo ID'si zaten kullanılıyor: ID=" + cargo.getId());
+            }
+            trackingIndex.put(cargo);
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+
+        ReentrantLock regionLock = regionLockFor(city, cityId);
+        ReentrantLock clientLock = clientLockFor(client);
+
+        regionLock.lock();
+        try {
+            cargo.setClient(client);
+            cargo.setCityId(cityId);
+
+            // Add to related city (before queueing, so a dispatcher always finds the city)
+            cityTree.addCargoToCity(cityId, cargo);
+
+            // Index the cargo and follow its status, city and date changes
+            bitmapIndex.add(cargo);
+            dateIndex.add(cargo);
+            subtreeCounts.add(cargo.getCityId(), cargo.getStatus());
+            statusViews.add(cargo);
+            cargo.setChangeListener(changeListener);
+
+            // Add to priority queue, which sets the delivery time
+            priorityQueue.addCargo(cargo);
+
+            // Follow the deadline only now that the delivery time is known
+            overdueMonitor.add(cargo);
+
+            clientLock.lock();
+            try {
+                // Add shipment to customer
+                client.addCargoToClient(cargo);
+            } finally {
+                clientLock.unlock();
+            }
+        } finally {
+            regionLock.unlock();
+        }
+    }
+
+    // Add a batch of cargos. Each cargo must carry its city ID and client.
+    // Cargos are grouped by city and client so every city list and customer history is updated
+    // in one pass, and the queue takes the whole batch at once (O(n) heapify with IndexedCargoHeap).
+    // Invalid cargos are reported in the result and do not stop the rest of the batch.
+    public BulkAddResult addCargos(Collection<Cargo> cargos) {
+        BulkAddResult result = new BulkAddResult();
+        Map<CityNode, List<Cargo>> byCity = new LinkedHashMap<>();
+        Map<Client, List<Cargo>> byClient = new IdentityHashMap<>();
+
+        // Validate, group and reserve the accepted IDs in one step, as addCargo does, so a concurrent
+        // add of the same ID is rejected before any city list or index changes. A repeat inside the
+        // batch finds the earlier copy's reservation. Every reservation is used below
+        trackingLock.writeLock().lock();
+        try {
+            for (Cargo cargo : cargos) {
+                CityNode city = cityTree.findCityById(cargo.getCityId());
+                if (city == null) {
+                    result.reject(cargo, BulkAddResult.RejectReason.UNKNOWN_CITY);
+                } else if (cargo.getClient() == null) {
+                    result.reject(cargo, BulkAddResult.RejectReason.MISSING_CLIENT);
+                } else if (trackingIndex.contains(cargo.getId()) || cargoStore.findRow(cargo.getId()) >= 0) {
+                    result.reject(cargo, BulkAddResult.RejectReason.DUPLICATE_ID);
+                } else {
+                    trackingIndex.put(cargo);
+                    result.accept(cargo);
+                    byCity.computeIfAbsent(city, c -> new ArrayList<>()).add(cargo);
+                    byClient.computeIfAbsent(cargo.getClient(), c -> new ArrayList<>()).add(cargo);
+                }
+            }
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+
+        // Attach each city group in one pass
+        for (Map.Entry<CityNode, List<Cargo>> group : byCity.entrySet()) {
+            ReentrantLock regionLock = regionLockFor(group.getKey(), group.getKey().getCityId());
+            regionLock.lock();
+            try {
+                group.getKey().addCargos(group.getValue());
+            } finally {
+                regionLock.unlock();
+            }
+        }
+
+        // Merge each customer's group into their history in one pass
+        for (Map.Entry<Client, List<Cargo>> group : byClient.entrySet()) {
+            ReentrantLock clientLock = clientLockFor(group.getKey());
+            clientLock.lock();
+            try {
+                group.getKey().addCargosToClient(group.getValue());
+            } finally {
+                clientLock.unlock();
+            }
+        }
+
+        // Index the batch and follow status, city and date changes
+        List<Cargo> accepted = result.getAccepted();
+        for (Cargo cargo : accepted) {
+            bitmapIndex.add(cargo);
+            dateIndex.add(cargo);
+            subtreeCounts.add(cargo.getCityId(), cargo.getStatus());
+            statusViews.add(cargo);
+            cargo.setChangeListener(changeListener);
+        }
+
+        // Add the whole batch to the priority queue, which sets the delivery times
+        if (!accepted.isEmpty()) {
+            priorityQueue.addCargos(accepted);
+        }
+        for (Cargo cargo : accepted) {
+            overdueMonitor.add(cargo);
+        }
+
+        for (BulkAddResult.Reject reject : result.getRejects()) {
+            System.out.println("Kargo reddedildi: ID=" + reject.getCargo().getId() + ", Sebep=" + reject.getReason());
+        }
+        return result;
+    }
+
+    // Store a shipment record in the record store only, without creating a Cargo object.
+    // Meant for large volumes of history that do not need queueing or city lists.
+    // Importing an ID again replaces the earlier record.
+    // Returns the row of the record, or -1 if the city is unknown or the ID belongs to a Cargo object
+    public int importCargoRecord(int id, long dateMillis, Status status, int cityId, int clientId) {
+        CityNode city = cityTree.findCityById(cityId);
+        if (city == null) {
+            System.out.println("Şehir ID'si bulunamadı: " + cityId);
+            return -1;
+        }
+        trackingLock.writeLock().lock();
+        try {
+            if (trackingIndex.contains(id)) {
+                System.out.println("Kargo ID'si zaten kullanılıyor: ID=" + id);
+                return -1;
+            }
+            int row = cargoStore.findRow(id);
+            if (row >= 0) {
+                bitmapIndex.remove(id, cargoStore.getStatus(row), cargoStore.getCityId(row));
+                dateIndex.remove(id, cargoStore.getDateMillis(row));
+                subtreeCounts.remove(cargoStore.getCityId(row), cargoStore.getStatus(row));
+            }
+            bitmapIndex.add(id, status, cityId);
+            dateIndex.add(id, dateMillis);
+            subtreeCounts.add(cityId, status);
+            return cargoStore.add(id, dateMillis, status, cityId, priorityQueue.deliveryTimeFor(city), clientId);
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+    }
+
+    // Change the status of a record in the record store
+    public boolean updateCargoRecordStatus(int id, Status status) {
+        trackingLock.writeLock().lock();
+        try {
+            int row = cargoStore.findRow(id);
+            if (row < 0) {
+                return false;
+            }
+            bitmapIndex.statusChanged(id, cargoStore.getStatus(row), status);
+            subtreeCounts.statusChanged(cargoStore.getCityId(row), cargoStore.getStatus(row), status);
+            cargoStore.setStatus(row, status);
+            return true;
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+    }
+
+    // Status of a stored record without creating a Cargo view, or null if the record is unknown
+    public Status getCargoRecordStatus(int id) {
+        trackingLock.readLock().lock();
+        try {
+            int row = cargoStore.findRow(id);
+            return row < 0 ? null : cargoStore.getStatus(row);
+        } finally {
+            trackingLock.readLock().unlock();
+        }
+    }
+
+    // Whether a stored record names the client. Record views have no Client object to compare
+    boolean isCargoRecordOf(int id, Client client) {
+        trackingLock.readLock().lock();
+        try {
+            int row = cargoStore.findRow(id);
+            return row >= 0 && cargoStore.getClientId(row) == client.getId();
+        } finally {
+            trackingLock.readLock().unlock();
+        }
+    }
+
+    public CargoRecordStore getCargoStore() {
+        return cargoStore;
+    }
+
+    // Status and city bitmaps over all cargos and imported records
+    public CargoBitmapIndex getBitmapIndex() {
+        return bitmapIndex;
+    }
+
+    // Shipment counts per city and per subtree
+    public SubtreeCargoCounts getSubtreeCounts() {
+        return subtreeCounts;
+    }
+
+    // Shipments in the city and all cities below it. Time complexity O(log n)
+    public int countCargosInSubtree(int cityId) {
+        return subtreeCounts.subtreeCount(cityId);
+    }
+
+    // Shipments with the status in the city and all cities below it. Time complexity O(log n)
+    public int countCargosInSubtree(int cityId, Status status) {
+        return subtreeCounts.subtreeCount(cityId, status);
+    }
+
+    // Shipments not yet delivered in the city and all cities below it. Time complexity O(log n)
+    public int countUndeliveredCargosInSubtree(int cityId) {
+        return subtreeCounts.undeliveredSubtreeCount(cityId);
+    }
+
+    // Undelivered shipments ordered by deadline
+    public OverdueMonitor getOverdueMonitor() {
+        return overdueMonitor;
+    }
+
+    // The k shipments furthest past their deadline, most overdue first
+    public List<Cargo> getMostOverdueCargos(int k) {
+        return overdueMonitor.getMostOverdue(k);
+    }
+
+    public int getOverdueCount(int cityId) {
+        return overdueMonitor.getOverdueCount(cityId);
+    }
+
+    // Called once for every shipment that passes its deadline
+    public void addOverdueListener(OverdueListener listener) {
+        overdueMonitor.addListener(listener);
+    }
+
+    // Start a query over all cargos and imported records
+    public CargoQuery query() {
+        return new CargoQuery(this);
+    }
+
+    public CityTree getCityTree() {
+        return cityTree;
+    }
+
+    // Number of cargos and imported records
+    public int getShipmentCount() {
+        trackingLock.readLock().lock();
+        try {
+            return trackingIndex.size() + cargoStore.size();
+        } finally {
+            trackingLock.readLock().unlock();
+        }
+    }
+
+    // IDs of the client's cargos and of the imported records that name the client
+    CargoBitmap getClientCargoIds(Client client) {
+        CargoBitmap ids = new CargoBitmap();
+        ReentrantLock clientLock = clientLockFor(client);
+        clientLock.lock();
+        try {
+            for (Cargo cargo : client.getCargoHistory()) {
+                ids.add(cargo.getId());
+            }
+        } finally {
+            clientLock.unlock();
+        }
+
+        trackingLock.readLock().lock();
+        try {
+            for (int row = 0, n = cargoStore.size(); row < n; row++) {
+                if (cargoStore.getClientId(row) == client.getId()) {
+                    ids.add(cargoStore.getId(row));
+                }
+            }
+        } finally {
+            trackingLock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    // Shipment days of all cargos and imported records
+    public CargoDateIndex getDateIndex() {
+        return dateIndex;
+    }
 
-        // Add to related city
-        cityTree.addCargoToCity(cityId, cargo);
+    // Shipments created between the two days (both inclusive), oldest day first.
+    // Uses the per-day index, so only the matching days are visited
+    public List<Cargo> findCargosBetween(LocalDate from, LocalDate to) {
+        int[] ids = dateIndex.idsBetween((int) from.toEpochDay(), (int) to.toEpochDay());
+        List<Cargo> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Cargo cargo = findCargoById(id);
+            if (cargo != null) {
+                result.add(cargo);
+            }
+        }
+        return result;
+    }
 
-        cargo.setCityId(cityId);
+    public int countCargosBetween(LocalDate from, LocalDate to) {
+        return dateIndex.countBetween((int) from.toEpochDay(), (int) to.toEpochDay());
+    }
+
+    // Number of shipments with the status, read from the bitmap index
+    public int countCargos(Status status) {
+        return bitmapIndex.count(status);
+    }
+
+    // Number of shipments with the status in the city, read from the bitmap index
+    public int countCargos(Status status, int cityId) {
+        return bitmapIndex.count(status, cityId);
+    }
 
-        // Add shipment to customer
-        client.addCargoToClient(cargo);
+    // Find cargo by ID across all clients, then in the record store. Time complexity O(1) on average
+    public Cargo findCargoById(int id) {
+        trackingLock.readLock().lock();
+        try {
+            Cargo cargo = trackingIndex.get(id);
+            return cargo != null ? cargo : cargoStore.findById(id);
+        } finally {
+            trackingLock.readLock().unlock();
+        }
     }
 
     // Process priority shipment
@@ -35,40 +416,168 @@ public class CargoManager {
         Cargo nextCargo = priorityQueue.processNextCargo();
 
         if (nextCargo != null) {
-            // Find your city and update your status
-            CityNode city = cityTree.findCityById(cityTree.getRoot(), findCityIdByCargo(nextCargo));
-            if (city != null) {
-                nextCargo.setStatus(Status.DELIVERED);
+            ReentrantLock regionLock = lockRegionOf(nextCargo);
+            try {
+                // Find your city and update your status
+                CityNode city = nextCargo.getCityNode();
+                if (city != null) {
+                    city.removeCargo(nextCargo);
+                    nextCargo.setStatus(Status.DELIVERED);
+                }
+            } finally {
+                regionLock.unlock();
             }
         }
         return nextCargo;
     }
 
+    // Next shipment to be processed, without removing it
+    public Cargo peekNextCargo() {
+        return priorityQueue.peek();
+    }
+
+    // Cancel a queued shipment and remove it from its city, customer and the tracking index
+    public Cargo cancelCargo(int cargoId) {
+        Cargo cargo = priorityQueue.cancel(cargoId);
+        if (cargo == null) {
+            return null;
+        }
+
+        ReentrantLock clientLock = clientLockFor(cargo.getClient());
+        ReentrantLock regionLock = lockRegionOf(cargo);
+        try {
+            CityNode city = cargo.getCityNode();
+            if (city != null) {
+                city.removeCargo(cargo);
+            }
+            clientLock.lock();
+            try {
+                if (cargo.getClient() != null) {
+                    cargo.getClient().getCargoHistory().remove(cargo);
+                }
+            } finally {
+                clientLock.unlock();
+            }
+        } finally {
+            regionLock.unlock();
+        }
+
+        cargo.setChangeListener(null);
+        bitmapIndex.remove(cargoId, cargo.getStatus(), cargo.getCityId());
+        dateIndex.remove(cargoId, cargo.getDateMillis());
+        subtreeCounts.remove(cargo.getCityId(), cargo.getStatus());
+        statusViews.remove(cargo);
+        overdueMonitor.remove(cargo);
+
+        trackingLock.writeLock().lock();
+        try {
+            trackingIndex.remove(cargoId);
+        } finally {
+            trackingLock.writeLock().unlock();
+        }
+        return cargo;
+    }
+
+    // Change the delivery time of a queued shipment
+    public boolean reprioritizeCargo(int cargoId, int newDeliveryTime) {
+        if (!priorityQueue.reprioritize(cargoId, newDeliveryTime)) {
+            return false;
+        }
+        Cargo cargo = findCargoById(cargoId);
+        if (cargo != null) {
+            overdueMonitor.update(cargo);
+        }
+        return true;
+    }
+
+    // Move a shipment to another city. Both region locks are taken in stripe order so two moves
+    // in opposite directions cannot deadlock
+    public boolean moveCargo(int cargoId, int newCityId) {
+        Cargo cargo = findCargoById(cargoId);
+        CityNode newCity = cityTree.findCityById(newCityId);
+        if (cargo == null || newCity == null) {
+            return false;
+        }
+
+        int from = regionStripe(cargo.getCityNode(), cargo.getCityId());
+        int to = regionStripe(newCity, newCityId);
+        ReentrantLock first = regionLocks[Math.min(from, to)];
+        ReentrantLock second = regionLocks[Math.max(from, to)];
+        first.lock();
+        second.lock();
+        try {
+            cargo.setCityId(newCityId);
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+        return true;
+    }
+
+    // Use weighted road and air links for delivery times and quotes instead of tree hops
+    public void setTransportNetwork(TransportNetwork network) {
+        priorityQueue.setTransportNetwork(network);
+        routeFinder = network == null ? null : new RouteFinder(network);
+        routeCache.invalidateAll();
+    }
+
+    // Delivery time quote between two cities: cheapest route cost + 1 with a transport network,
+    // otherwise hops on the tree path + 1, like depth + 1 from the center. Returns -1 if there is no route
+    public int estimateDeliveryTime(int fromCityId, int toCityId) {
+        Route route = findRoute(fromCityId, toCityId);
+        return route.exists() ? route.getCost() + 1 : -1;
+    }
+
+    // Cheapest route (transport network) or tree path between two cities, served from the route cache
+    public Route findRoute(int fromCityId, int toCityId) {
+        int treeVersion = cityTree.getVersion();
+        if (treeVersion != routeCacheTreeVersion) {
+            routeCacheTreeVersion = treeVersion;
+            routeCache.invalidateAll(); // Cities were added
+        }
+        return routeCache.get(fromCityId, toCityId);
+    }
+
+    // Hit rate, eviction count and size of the route cache
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    private Route computeRoute(int fromCityId, int toCityId) {
+        RouteFinder finder = routeFinder;
+        if (finder != null) {
+            return finder.findRoute(fromCityId, toCityId);
+        }
+        List<CityNode> path = cityTree.getPath(fromCityId, toCityId);
+        if (path.isEmpty()) {
+            return Route.NONE;
+        }
+        return new Route(path.size() - 1, path.stream().mapToInt(CityNode::getCityId).toArray());
+    }
+
     // Print the tree
     public void printRoutes() {
         cityTree.printTree(cityTree.getRoot(), 0);
     }
 
-    private int findCityIdByCargo(Cargo cargo) {
-        return findCityIdRecursive(cityTree.getRoot(), cargo);
+    // Delivered shipments sorted by ID, maintained on every status change (read-only, no copy)
+    public Collection<Cargo> getDeliveredCargos() {
+        return statusViews.getDelivered();
     }
 
-    private int findCityIdRecursive(CityNode node, Cargo cargo) {
-        if (node == null) return -1;
+    // Undelivered shipments sorted by ID, maintained on every status change (read-only, no copy)
+    public Collection<Cargo> getUndeliveredCargos() {
+        return statusViews.getUndelivered();
+    }
 
-        for (Cargo c : node.getCargos()) {
-            if (c.getId() == cargo.getId()) {
-                return node.getCityId();
-            }
-        }
+    // Delivered shipments of a client. Time complexity O(1)
+    public int getDeliveredCount(Client client) {
+        return statusViews.getDeliveredCount(client.getId());
+    }
 
-        for (CityNode child : node.getChildren()) {
-            int result = findCityIdRecursive(child, cargo);
-            if (result != -1) {
-                return result;
-            }
-        }
-        return -1;
+    // Undelivered shipments of a client. Time complexity O(1)
+    public int getUndeliveredCount(Client client) {
+        return statusViews.getUndeliveredCount(client.getId());
     }
 
     // Add delivered shipments to the list
@@ -83,8 +592,8 @@ public class CargoManager {
         }
 
         // Sorting by IDs of delivered cargo (Sorting for Binary Search)
-        // Sort Method Time Complexity(O(nlogn))
-        deliveredCargos.sort(Comparator.comparingInt(Cargo::getId));
+        // Radix sort on the primitive IDs, Time Complexity O(n)
+        RadixSort.sortById(deliveredCargos);
 
         return deliveredCargos;
     }
@@ -101,42 +610,31 @@ public class CargoManager {
             }
         }
 
-        // Sort undelivered cargo by delivery times (Merge Sort)
-        mergeSortById(undeliveredCargos);
+        // Sort undelivered cargo by IDs (stable radix sort, Time Complexity O(n))
+        RadixSort.sortById(undeliveredCargos);
 
         return undeliveredCargos;
     }
 
 
-    // Merge Sort algorithm based on ID (Time Complexity O(nlogn))
-    private void mergeSortById(List<Cargo> cargos) {
-        if (cargos == null || cargos.size() <= 1) {
-            return;
-        }
-        int mid = cargos.size() / 2;
-        List<Cargo> left = new ArrayList<>(cargos.subList(0, mid));
-        List<Cargo> right = new ArrayList<>(cargos.subList(mid, cargos.size()));
-        mergeSortById(left);
-        mergeSortById(right);
-        mergeById(cargos, left, right);
+    // Parallel version of getDeliveredCargos for large lists (fork-join filter and merge sort).
+    // Gives the same order as the sequential version; the returned list has a fixed size
+    public List<Cargo> getDeliveredCargosParallel(List<Cargo> cargos) {
+        return parallelSorter.filterAndSortById(cargos, cargo -> cargo.getStatus() == Status.DELIVERED);
     }
 
-    // Merge operation by ID
-    private void mergeById(List<Cargo> cargos, List<Cargo> left, List<Cargo> right) {
-        int i = 0, j = 0, k = 0;
-        while (i < left.size() && j < right.size()) {
-            if (left.get(i).getId() < right.get(j).getId()) {
-                cargos.set(k++, left.get(i++));
-            } else {
-                cargos.set(k++, right.get(j++));
-            }
-        }
-        while (i < left.size()) {
-            cargos.set(k++, left.get(i++));
-        }
-        while (j < right.size()) {
-            cargos.set(k++, right.get(j++));
-        }
+    // Parallel version of getUndeliveredCargos for large lists (fork-join filter and merge sort).
+    // Gives the same order as the sequential version; the returned list has a fixed size
+    public List<Cargo> getUndeliveredCargosParallel(List<Cargo> cargos) {
+        return parallelSorter.filterAndSortById(cargos,
+                cargo -> cargo.getStatus() != null && cargo.getStatus() != Status.DELIVERED);
+    }
+
+    // Order shipments for dispatch reports: delivery time, then date, then ID (stable radix sort, O(n))
+    public List<Cargo> sortForReport(List<Cargo> cargos) {
+        List<Cargo> sorted = new ArrayList<>(cargos);
+        RadixSort.sortByDeliveryTimeDateId(sorted);
+        return sorted;
     }
 
 
@@ -158,4 +656,79 @@ public class CargoManager {
 
         return null; // If cargo is not found
     }
+
+    // Lock the region the cargo is in; retried if the cargo moved to another region meanwhile
+    private ReentrantLock lockRegionOf(Cargo cargo) {
+        while (true) {
+            ReentrantLock lock = regionLockFor(cargo.getCityNode(), cargo.getCityId());
+            lock.lock();
+            if (lock == regionLockFor(cargo.getCityNode(), cargo.getCityId())) {
+                return lock;
+            }
+            lock.unlock();
+        }
+    }
+
+    // Keeps the indexes current when a cargo changes status, city or date
+    private class IndexUpdater implements CargoChangeListener {
+        @Override
+        public void statusChanged(Cargo cargo, Status oldStatus, Status newStatus) {
+            bitmapIndex.statusChanged(cargo.getId(), oldStatus, newStatus);
+            subtreeCounts.statusChanged(cargo.getCityId(), oldStatus, newStatus);
+            statusViews.statusChanged(cargo, oldStatus, newStatus);
+            overdueMonitor.statusChanged(cargo, oldStatus, newStatus);
+        }
+
+        @Override
+        public void cityChanged(Cargo cargo, int oldCityId, int newCityId) {
+            bitmapIndex.cityChanged(cargo.getId(), oldCityId, newCityId);
+            subtreeCounts.cityChanged(cargo.getStatus(), oldCityId, newCityId);
+            overdueMonitor.cityChanged(cargo, oldCityId, newCityId);
+        }
+
+        @Override
+        public void dateChanged(Cargo cargo, long oldDateMillis, long newDateMillis) {
+            dateIndex.dateChanged(cargo.getId(), oldDateMillis, newDateMillis);
+            overdueMonitor.update(cargo);
+
+            // The history is ordered by date, so the entry is moved to its new place
+            Client client = cargo.getClient();
+            if (client != null) {
+                ReentrantLock clientLock = clientLockFor(client);
+                clientLock.lock();
+                try {
+                    client.getCargoHistory().dateChanged(cargo, oldDateMillis);
+                } finally {
+                    clientLock.unlock();
+                }
+            }
+        }
+    }
+
+    private ReentrantLock regionLockFor(CityNode city, int cityId) {
+        return regionLocks[regionStripe(city, cityId)];
+    }
+
+    // Cities of the same top-level region share a stripe. Unknown cities use their own ID
+    private int regionStripe(CityNode city, int cityId) {
+        CityNode region = cityTree.getRegion(city != null ? city : cityTree.findCityById(cityId));
+        return stripe(region != null ? region.getCityId() : cityId);
+    }
+
+    private ReentrantLock clientLockFor(Client client) {
+        return clientLocks[stripe(client == null ? 0 : client.getId())];
+    }
+
+    private static int stripe(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private static ReentrantLock[] newStripes() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
 }
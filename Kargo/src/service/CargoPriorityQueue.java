@@ -2,56 +2,167 @@ package service;
 
 import model.Cargo;
 import model.CityNode;
+import model.CityTree;
+import model.TransportNetwork;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 public class CargoPriorityQueue {
-    private final PriorityQueue<Cargo> cargoQueue;
-    private final CityNode root;
+    private final CargoQueue cargoQueue;
+    private final CityTree cityTree;
+    private final ReentrantLock lock; // Guards cargoQueue when it is not thread-safe itself, otherwise null
+    private volatile CenterRoutes centerRoutes; // Route costs out of the center, null without a network
 
-    // We use a special comparator to sort the Priority Queue by delivery time.
-    public CargoPriorityQueue(CityNode root) {
-        this.root = root;
-        this.cargoQueue = new PriorityQueue<>(Comparator.comparingInt(Cargo::getDeliveryTime));
+    // By default an indexed binary heap sorts the queue by delivery time.
+    public CargoPriorityQueue(CityTree cityTree) {
+        this(cityTree, new IndexedCargoHeap());
+    }
+
+    // Use the given queue implementation (e.g. BucketCargoQueue)
+    public CargoPriorityQueue(CityTree cityTree, CargoQueue cargoQueue) {
+        this.cityTree = cityTree;
+        this.cargoQueue = cargoQueue;
+        this.lock = cargoQueue.isThreadSafe() ? null : new ReentrantLock();
     }
 
     // Adding cargo
     public void addCargo(Cargo cargo) {
-        CityNode city = findCityById(root, cargo.getCityId()); // Şehri bul
+        CityNode city = cityTree.findCityById(cargo.getCityId()); // Şehri bul
         if (city == null) {
             System.out.println("Şehir bulunamadı. Kargo eklenemedi.");
             return;
         }
 
-        // Adjust delivery time according to the depth of the tree
-        cargo.setDeliveryTime(city.getDepth() + 1);
-        cargoQueue.offer(cargo); // Kuyruğa ekle
+        cargo.setDeliveryTime(deliveryTimeFor(city));
+        lock();
+        try {
+            cargoQueue.offer(cargo); // Kuyruğa ekle
+        } finally {
+            unlock();
+        }
         System.out.println("Kargo eklendi: ID=" + cargo.getId() + ", Süre=" + cargo.getDeliveryTime());
     }
 
+    // Adding a batch of cargos whose cities were already checked
+    public void addCargos(List<Cargo> cargos) {
+        for (Cargo cargo : cargos) {
+            CityNode city = cityTree.findCityById(cargo.getCityId());
+            cargo.setDeliveryTime(deliveryTimeFor(city));
+        }
+
+        lock();
+        try {
+            cargoQueue.offerAll(cargos);
+        } finally {
+            unlock();
+        }
+        System.out.println("Toplu kargo eklendi: " + cargos.size() + " adet");
+    }
+
+    // Compute delivery times from the cheapest route out of the center instead of the tree depth.
+    // Runs one Dijkstra search now, every later lookup is O(1). Queued cargos keep their times
+    public void setTransportNetwork(TransportNetwork network) {
+        CityNode center = cityTree.getRoot();
+        centerRoutes = network == null || center == null ? null
+                : new CenterRoutes(network, new RouteFinder(network, 0).costsFrom(center.getCityId()));
+    }
+
+    // Route cost from the center + 1. Cities without a route (or without a network) use the tree depth + 1
+    public int deliveryTimeFor(CityNode city) {
+        CenterRoutes routes = centerRoutes;
+        if (routes != null) {
+            int index = routes.network.indexOf(city.getCityId());
+            if (index != TransportNetwork.NONE && routes.costs[index] != RouteFinder.UNREACHABLE) {
+                return routes.costs[index] + 1;
+            }
+        }
+        return city.getDepth() + 1;
+    }
+
     // Processing priority cargo
     public Cargo processNextCargo() {
-        if (cargoQueue.isEmpty()) {
+        Cargo nextCargo;
+        lock();
+        try {
+            nextCargo = cargoQueue.poll(); // Receive priority shipping
+        } finally {
+            unlock();
+        }
+        // Checked after poll, another consumer may empty a concurrent queue in between
+        if (nextCargo == null) {
             System.out.println("İşlenecek kargo yok.");
             return null;
         }
-        Cargo nextCargo = cargoQueue.poll(); // Receive priority shipping
         System.out.println("İşlenen kargo: ID=" + nextCargo.getId() + ", Süre=" + nextCargo.getDeliveryTime());
         return nextCargo;
     }
 
-    // Find city by city ID (by navigating through the tree structure)
-    private CityNode findCityById(CityNode node, int cityId) {
-        if (node == null) return null;
-        if (node.getCityId() == cityId) return node;
+    // Next cargo to be processed, without removing it
+    public Cargo peek() {
+        lock();
+        try {
+            return cargoQueue.peek();
+        } finally {
+            unlock();
+        }
+    }
 
-        for (CityNode child : node.getChildren()) {
-            CityNode found = findCityById(child, cityId);
-            if (found != null) return found;
+    // Cancel a queued cargo. Time complexity O(log n) with IndexedCargoHeap
+    public Cargo cancel(int cargoId) {
+        Cargo cancelled;
+        lock();
+        try {
+            cancelled = cargoQueue.remove(cargoId);
+        } finally {
+            unlock();
+        }
+        if (cancelled == null) {
+            System.out.println("Kuyrukta kargo bulunamadı: ID=" + cargoId);
+            return null;
+        }
+        System.out.println("Kargo iptal edildi: ID=" + cargoId);
+        return cancelled;
+    }
+
+    // Change the delivery time of a queued cargo. Time complexity O(log n) with IndexedCargoHeap
+    public boolean reprioritize(int cargoId, int newDeliveryTime) {
+        boolean updated;
+        lock();
+        try {
+            updated = cargoQueue.updateDeliveryTime(cargoId, newDeliveryTime);
+        } finally {
+            unlock();
+        }
+        if (!updated) {
+            System.out.println("Kuyrukta kargo bulunamadı: ID=" + cargoId);
+            return false;
+        }
+        System.out.println("Kargo önceliği güncellendi: ID=" + cargoId + ", Süre=" + newDeliveryTime);
+        return true;
+    }
+
+    private void lock() {
+        if (lock != null) {
+            lock.lock();
+        }
+    }
+
+    private void unlock() {
+        if (lock != null) {
+            lock.unlock();
         }
-        return null;
     }
-}
 
+    // The network and the costs indexed by its city indexes, swapped together
+    private static final class CenterRoutes {
+        final TransportNetwork network;
+        final int[] costs;
+
+        CenterRoutes(TransportNetwork network, int[] costs) {
+            this.network = network;
+            this.costs = costs;
+        }
+    }
+}
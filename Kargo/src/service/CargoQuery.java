@@ -0,0 +1,315 @@
+package service;
+
+import model.Cargo;
+import model.CargoDates;
+import model.CityNode;
+import model.FlatCityTree;
+import model.Client;
+import model.Status;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Ad hoc query over all shipments of a CargoManager, e.g.
+//   manager.query().status(Status.ONDELIVERY).inSubtree(34).createdBetween(from, to)
+//          .orderBy(CargoQuery.Order.DELIVERY_TIME).limit(20).list()
+// The planner estimates how many IDs each usable access path would produce and reads the smallest one.
+// The remaining conditions are checked on each cargo while the results are streamed.
+public class CargoQuery {
+    public enum AccessPath {
+        ID_LOOKUP, STATUS_INDEX, CITY_INDEX, DATE_INDEX, CLIENT_HISTORY, FULL_SCAN
+    }
+
+    public enum Order {
+        NONE, ID, DATE, DELIVERY_TIME
+    }
+
+    private final CargoManager manager;
+
+    private Integer id;
+    private Set<Status> statuses;
+    private int[] cityIds;          // Sorted, null if any city
+    private String cityDescription;
+    private Client client;
+    private int fromDay = Integer.MIN_VALUE;
+    private int toDay = Integer.MAX_VALUE;
+    private boolean dateFiltered;
+    private int minDeliveryTime = Integer.MIN_VALUE;
+    private int maxDeliveryTime = Integer.MAX_VALUE;
+    private Order order = Order.NONE;
+    private long offset;
+    private long limit = Long.MAX_VALUE;
+
+    CargoQuery(CargoManager manager) {
+        this.manager = manager;
+    }
+
+    public CargoQuery id(int id) {
+        this.id = id;
+        return this;
+    }
+
+    public CargoQuery status(Status first, Status... more) {
+        this.statuses = EnumSet.of(first, more);
+        return this;
+    }
+
+    public CargoQuery inCities(int... cityIds) {
+        this.cityIds = IntStream.of(cityIds).sorted().distinct().toArray();
+        this.cityDescription = "cities " + Arrays.toString(this.cityIds);
+        return this;
+    }
+
+    // The city and every city below it (one contiguous range of the flattened tree)
+    public CargoQuery inSubtree(int cityId) {
+        FlatCityTree tree = manager.getCityTree().flatten();
+        CityNode top = manager.getCityTree().findCityById(cityId);
+        int start = top == null ? FlatCityTree.NONE : tree.positionOf(top);
+        int[] ids = new int[start == FlatCityTree.NONE ? 0 : tree.subtreeSize(start)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tree.cityId(start + i);
+        }
+        Arrays.sort(ids);
+        this.cityIds = ids;
+        this.cityDescription = "subtree of " + cityId + " (" + cityIds.length + " cities)";
+        return this;
+    }
+
+    public CargoQuery client(Client client) {
+        this.client = client;
+        return this;
+    }
+
+    // Shipment date between the two days, both inclusive
+    public CargoQuery createdBetween(LocalDate from, LocalDate to) {
+        this.fromDay = (int) from.toEpochDay();
+        this.toDay = (int) to.toEpochDay();
+        this.dateFiltered = true;
+        return this;
+    }
+
+    public CargoQuery deliveryTimeBetween(int min, int max) {
+        this.minDeliveryTime = min;
+        this.maxDeliveryTime = max;
+        return this;
+    }
+
+    public CargoQuery orderBy(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    public CargoQuery offset(long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset negatif olamaz: " + offset);
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    public CargoQuery limit(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit negatif olamaz: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    // Results are read lazily from the chosen path. An ordered query has to read all matches first
+    public Stream<Cargo> stream() {
+        Plan plan = plan();
+        Stream<Cargo> matches = plan.candidateIds()
+                .mapToObj(manager::findCargoById)
+                .filter(cargo -> cargo != null && matches(cargo));
+        if (order != Order.NONE && !plan.alreadyOrdered()) {
+            List<Cargo> sorted = matches.collect(Collectors.toCollection(ArrayList::new));
+            sort(sorted);
+            matches = sorted.stream();
+        }
+        return matches.skip(offset).limit(limit);
+    }
+
+    public List<Cargo> list() {
+        return stream().collect(Collectors.toList());
+    }
+
+    // Number of matching shipments, ignoring offset and limit
+    public long count() {
+        return plan().candidateIds()
+                .mapToObj(manager::findCargoById)
+                .filter(cargo -> cargo != null && matches(cargo))
+                .count();
+    }
+
+    public AccessPath chosenPath() {
+        return plan().path;
+    }
+
+    // Describes the chosen path, the estimate of every usable path and the remaining steps
+    public String explain() {
+        Plan plan = plan();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Access path: ").append(plan.path).append(" (estimated ").append(plan.estimate).append(" rows)\n");
+        sb.append("Candidates:");
+        for (AccessPath path : AccessPath.values()) {
+            long estimate = estimate(path);
+            if (estimate >= 0) {
+                sb.append(' ').append(path).append('=').append(estimate);
+            }
+        }
+        sb.append('\n');
+        List<String> filters = filterDescriptions();
+        sb.append("Filter: ").append(filters.isEmpty() ? "none" : String.join(" AND ", filters)).append('\n');
+        if (order != Order.NONE) {
+            sb.append("Order: ").append(order).append(plan.alreadyOrdered() ? " (index order, no sort)" : " (sort after filter)").append('\n');
+        }
+        sb.append("Offset: ").append(offset).append(", Limit: ").append(limit == Long.MAX_VALUE ? "none" : limit);
+        return sb.toString();
+    }
+
+    private Plan plan() {
+        AccessPath best = AccessPath.FULL_SCAN;
+        long bestEstimate = estimate(AccessPath.FULL_SCAN);
+        for (AccessPath path : AccessPath.values()) {
+            long estimate = estimate(path);
+            if (estimate >= 0 && estimate < bestEstimate) {
+                best = path;
+                bestEstimate = estimate;
+            }
+        }
+        return new Plan(best, bestEstimate);
+    }
+
+    // Rows the path would produce, or -1 if the query cannot use it
+    private long estimate(AccessPath path) {
+        CargoBitmapIndex bitmapIndex = manager.getBitmapIndex();
+        return switch (path) {
+            case ID_LOOKUP -> id == null ? -1 : 1;
+            case STATUS_INDEX -> statuses == null ? -1
+                    : statuses.stream().mapToLong(bitmapIndex::count).sum();
+            case CITY_INDEX -> cityIds == null ? -1
+                    : IntStream.of(cityIds).mapToLong(bitmapIndex::countInCity).sum();
+            case DATE_INDEX -> dateFiltered ? manager.getDateIndex().countBetween(fromDay, toDay) : -1;
+            // Imported records are not in the history, so they are scanned as well
+            case CLIENT_HISTORY -> client == null ? -1
+                    : client.getCargoHistory().size() + manager.getCargoStore().size();
+            case FULL_SCAN -> manager.getShipmentCount();
+        };
+    }
+
+    private List<String> filterDescriptions() {
+        List<String> filters = new ArrayList<>();
+        if (id != null) {
+            filters.add("id = " + id);
+        }
+        if (statuses != null) {
+            filters.add("status IN " + statuses);
+        }
+        if (cityIds != null) {
+            filters.add("city IN " + cityDescription);
+        }
+        if (client != null) {
+            filters.add("client = " + client.getId());
+        }
+        if (dateFiltered) {
+            filters.add("date BETWEEN " + LocalDate.ofEpochDay(fromDay) + " AND " + LocalDate.ofEpochDay(toDay));
+        }
+        if (minDeliveryTime != Integer.MIN_VALUE || maxDeliveryTime != Integer.MAX_VALUE) {
+            filters.add("deliveryTime BETWEEN " + minDeliveryTime + " AND " + maxDeliveryTime);
+        }
+        return filters;
+    }
+
+    // Every condition is checked again, so results stay correct if a cargo changed after planning
+    private boolean matches(Cargo cargo) {
+        if (id != null && cargo.getId() != id) {
+            return false;
+        }
+        if (statuses != null && (cargo.getStatus() == null || !statuses.contains(cargo.getStatus()))) {
+            return false;
+        }
+        if (cityIds != null && Arrays.binarySearch(cityIds, cargo.getCityId()) < 0) {
+            return false;
+        }
+        if (client != null && !belongsToClient(cargo)) {
+            return false;
+        }
+        if (dateFiltered) {
+            int day = cargo.getEpochDay();
+            if (day == CargoDates.NO_DAY || day < fromDay || day > toDay) {
+                return false;
+            }
+        }
+        int deliveryTime = cargo.getDeliveryTime();
+        return deliveryTime >= minDeliveryTime && deliveryTime <= maxDeliveryTime;
+    }
+
+    private void sort(List<Cargo> cargos) {
+        if (order == Order.ID) {
+            RadixSort.sortById(cargos);
+        } else if (order == Order.DATE) {
+            RadixSort.sortByDate(cargos);
+        } else if (order == Order.DELIVERY_TIME) {
+            RadixSort.sortByDeliveryTimeDateId(cargos);
+        }
+    }
+
+    // Imported records carry only the client ID, so a cargo without a Client is checked in the record store
+    private boolean belongsToClient(Cargo cargo) {
+        if (cargo.getClient() != null) {
+            return cargo.getClient().getId() == client.getId();
+        }
+        return manager.isCargoRecordOf(cargo.getId(), client);
+    }
+
+    private final class Plan {
+        final AccessPath path;
+        final long estimate;
+        private CargoBitmap candidates;
+
+        Plan(AccessPath path, long estimate) {
+            this.path = path;
+            this.estimate = estimate;
+        }
+
+        // The bitmap paths return IDs in unsigned order, which is ascending as long as no ID is negative.
+        // The date index returns them by day
+        boolean alreadyOrdered() {
+            if (order != Order.ID || path == AccessPath.DATE_INDEX) {
+                return false;
+            }
+            return path == AccessPath.ID_LOOKUP || !candidates().hasNegativeIds();
+        }
+
+        // Candidate IDs are read one at a time, so a limit stops the scan early
+        IntStream candidateIds() {
+            return switch (path) {
+                case ID_LOOKUP -> IntStream.of(id);
+                case DATE_INDEX -> IntStream.of(manager.getDateIndex().idsBetween(fromDay, toDay));
+                default -> candidates().stream();
+            };
+        }
+
+        // Each bitmap path builds its own copy, so it stays stable while the stream reads it
+        private CargoBitmap candidates() {
+            if (candidates == null) {
+                CargoBitmapIndex bitmapIndex = manager.getBitmapIndex();
+                candidates = switch (path) {
+                    case STATUS_INDEX -> bitmapIndex.withStatus(statuses.toArray(new Status[0]));
+                    case CITY_INDEX -> bitmapIndex.inCities(cityIds);
+                    case CLIENT_HISTORY -> manager.getClientCargoIds(client);
+                    case FULL_SCAN -> bitmapIndex.all();
+                    case ID_LOOKUP, DATE_INDEX -> throw new IllegalStateException(path + " bitmap kullanmaz");
+                };
+            }
+            return candidates;
+        }
+    }
+}
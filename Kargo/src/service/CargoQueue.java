@@ -0,0 +1,40 @@
+package service;
+
+import model.Cargo;
+
+import java.util.Collection;
+
+// Queue of cargos ordered by delivery time (smallest first)
+public interface CargoQueue {
+    void offer(Cargo cargo);
+
+    // Add a batch of cargos
+    default void offerAll(Collection<Cargo> cargos) {
+        for (Cargo cargo : cargos) {
+            offer(cargo);
+        }
+    }
+
+    // Remove and return the cargo with the smallest delivery time, or null if empty
+    Cargo poll();
+
+    // Return the cargo with the smallest delivery time without removing it, or null if empty
+    Cargo peek();
+
+    int size();
+
+    // Remove the queued cargo with the given ID, or return null if it is not queued
+    Cargo remove(int cargoId);
+
+    // Change the delivery time of a queued cargo, returns false if it is not queued
+    boolean updateDeliveryTime(int cargoId, int newDeliveryTime);
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // True if the queue can be used from several threads without external locking
+    default boolean isThreadSafe() {
+        return false;
+    }
+}
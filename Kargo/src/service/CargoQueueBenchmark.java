@@ -0,0 +1,233 @@
+package service;
+
+import model.Cargo;
+import model.Status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Contention benchmark for the thread-safe queues: producers and consumers move the same cargos
+// through IndexedCargoHeap behind one lock (as CargoPriorityQueue uses a plain queue) and through
+// ConcurrentCargoQueue with several shard counts and poll attempts. For the relaxed queue it also
+// measures the rank error: how many queued cargos had a smaller delivery time than the one polled.
+// Run: java service.CargoQueueBenchmark [producers] [consumers] [cargos]
+public final class CargoQueueBenchmark {
+    private static final int MAX_TIME = 10_000;
+    private static final int ROUNDS = 5;
+
+    private CargoQueueBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(2, cores / 2);
+        int consumers = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(2, cores / 2);
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        System.out.printf("cores=%d producers=%d consumers=%d cargos=%d, best of %d rounds%n",
+                cores, producers, consumers, count, ROUNDS);
+        System.out.printf("%-34s %12s %14s %14s%n", "queue", "Mops/s", "mean rank err", "max rank err");
+
+        run("IndexedCargoHeap + lock", () -> new LockedQueue(new IndexedCargoHeap()), producers, consumers, count);
+        int lastShards = 0;
+        for (int shards : new int[]{1, cores, 2 * cores, 4 * cores}) {
+            if (shards == lastShards) {
+                continue; // On one core the first two counts are the same
+            }
+            lastShards = shards;
+            for (int attempts : new int[]{1, 2, ConcurrentCargoQueue.DEFAULT_POLL_ATTEMPTS, 8}) {
+                if (shards == 1 && attempts != ConcurrentCargoQueue.DEFAULT_POLL_ATTEMPTS) {
+                    continue; // One shard never takes the two-choice path
+                }
+                run("Concurrent shards=" + shards + " attempts=" + attempts,
+                        () -> new ConcurrentCargoQueue(shards, attempts), producers, consumers, count);
+            }
+        }
+    }
+
+    private interface QueueFactory {
+        CargoQueue create();
+    }
+
+    private static void run(String name, QueueFactory factory, int producers, int consumers, int count)
+            throws InterruptedException {
+        Cargo[] cargos = createCargos(count);
+        double best = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.max(best, throughput(factory.create(), cargos, producers, consumers));
+        }
+        long[] rankError = rankError(factory.create(), createCargos(Math.min(count, 200_000)));
+        System.out.printf("%-34s %12.2f %14.2f %14d%n", name, best,
+                (double) rankError[0] / Math.min(count, 200_000), rankError[1]);
+    }
+
+    private static Cargo[] createCargos(int count) {
+        Random random = new Random(42);
+        Cargo[] cargos = new Cargo[count];
+        for (int i = 0; i < count; i++) {
+            cargos[i] = new Cargo(i, 0L, random.nextInt(MAX_TIME), Status.ONDELIVERY, null, 0);
+        }
+        return cargos;
+    }
+
+    // Million operations (offer + poll) per second with every thread running at once
+    private static double throughput(CargoQueue queue, Cargo[] cargos, int producers, int consumers)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger taken = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int from = (int) ((long) cargos.length * p / producers);
+            int to = (int) ((long) cargos.length * (p + 1) / producers);
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = from; i < to; i++) {
+                    queue.offer(cargos[i]);
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                while (taken.get() < cargos.length) {
+                    if (queue.poll() != null) {
+                        taken.incrementAndGet();
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        return 2.0 * cargos.length / elapsed * 1000;
+    }
+
+    // Fill the queue, then poll it empty on one thread. Returns the total and the largest rank error,
+    // counted with a Fenwick tree over the delivery times still queued
+    private static long[] rankError(CargoQueue queue, Cargo[] cargos) {
+        int[] tree = new int[MAX_TIME + 1];
+        for (Cargo cargo : cargos) {
+            queue.offer(cargo);
+            add(tree, cargo.getDeliveryTime(), 1);
+        }
+        long total = 0;
+        long max = 0;
+        Cargo cargo;
+        while ((cargo = queue.poll()) != null) {
+            int smaller = prefixSum(tree, cargo.getDeliveryTime() - 1);
+            total += smaller;
+            max = Math.max(max, smaller);
+            add(tree, cargo.getDeliveryTime(), -1);
+        }
+        return new long[]{total, max};
+    }
+
+    private static void add(int[] tree, int time, int delta) {
+        for (int i = time + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Number of queued cargos with a delivery time of at most time
+    private static int prefixSum(int[] tree, int time) {
+        int sum = 0;
+        for (int i = time + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A plain queue behind one lock, the way CargoPriorityQueue guards it
+    private static final class LockedQueue implements CargoQueue {
+        private final CargoQueue queue;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        LockedQueue(CargoQueue queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void offer(Cargo cargo) {
+            lock.lock();
+            try {
+                queue.offer(cargo);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Cargo poll() {
+            lock.lock();
+            try {
+                return queue.poll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Cargo peek() {
+            lock.lock();
+            try {
+                return queue.peek();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Cargo remove(int cargoId) {
+            lock.lock();
+            try {
+                return queue.remove(cargoId);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean updateDeliveryTime(int cargoId, int newDeliveryTime) {
+            lock.lock();
+            try {
+                return queue.updateDeliveryTime(cargoId, newDeliveryTime);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+}
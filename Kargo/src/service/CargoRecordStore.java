@@ -0,0 +1,271 @@
+package service;
+
+import model.Cargo;
+import model.CargoChangeListener;
+import model.CargoDates;
+import model.Client;
+import model.Status;
+
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntFunction;
+
+// Compact storage of cargo records addressed by row, without one Cargo object per record.
+// Subclasses decide where the fields live (primitive arrays, off-heap memory, ...).
+// Cargo objects are only created on request, as views that read and write the record.
+public abstract class CargoRecordStore {
+    protected static final long NO_DATE = CargoDates.NO_DATE;
+    protected static final int NO_CLIENT = -1;
+    protected static final byte NO_STATUS = -1;
+    private static final Status[] STATUSES = Status.values();
+
+    private IntFunction<Client> clientResolver = clientId -> null;
+    private CargoChangeListener changeListener; // Given to every view
+    private Lock viewWriteLock; // Held by views while they write a record, null if views are single-threaded
+
+    // Add a record and return its row. An existing record with the same ID is overwritten
+    public abstract int add(int id, long dateMillis, Status status, int cityId, int deliveryTime, int clientId);
+
+    // Row of the record with the given ID, or -1
+    public abstract int findRow(int id);
+
+    public abstract int size();
+
+    public abstract int getId(int row);
+
+    public abstract long getDateMillis(int row);
+
+    public abstract void setDateMillis(int row, long dateMillis);
+
+    public abstract int getCityId(int row);
+
+    public abstract void setCityId(int row, int cityId);
+
+    public abstract int getDeliveryTime(int row);
+
+    public abstract void setDeliveryTime(int row, int deliveryTime);
+
+    public abstract int getClientId(int row);
+
+    public abstract void setClientId(int row, int clientId);
+
+    protected abstract byte getStatusCode(int row);
+
+    protected abstract void setStatusCode(int row, byte code);
+
+    // Copy a cargo object into the store
+    public int add(Cargo cargo) {
+        Client client = cargo.getClient();
+        return add(cargo.getId(), cargo.getDateMillis(), cargo.getStatus(),
+                cargo.getCityId(), cargo.getDeliveryTime(), client == null ? NO_CLIENT : client.getId());
+    }
+
+    public Status getStatus(int row) {
+        byte code = getStatusCode(row);
+        return code < 0 ? null : STATUSES[code];
+    }
+
+    public void setStatus(int row, Status status) {
+        setStatusCode(row, statusCode(status));
+    }
+
+    // Number of records with the given status
+    public int countByStatus(Status status) {
+        byte code = statusCode(status);
+        int count = 0;
+        for (int row = 0, n = size(); row < n; row++) {
+            if (getStatusCode(row) == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Cargo view of the record with the given ID, or null. Creates one small object per call
+    public Cargo findById(int id) {
+        int row = findRow(id);
+        return row < 0 ? null : view(row);
+    }
+
+    public Cargo view(int row) {
+        checkRow(row);
+        RecordView view = new RecordView(row);
+        view.setChangeListener(changeListener);
+        return view;
+    }
+
+    // Resolves client IDs to Client objects for views
+    public void setClientResolver(IntFunction<Client> clientResolver) {
+        this.clientResolver = clientResolver;
+    }
+
+    // Notified when a view changes the status or city of a record
+    public void setChangeListener(CargoChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    // Views take this lock around each write, so a write cannot land in a column array that an owner
+    // holding the same lock is replacing (e.g. while it grows the store). Listeners run after it is released
+    public void setViewWriteLock(Lock viewWriteLock) {
+        this.viewWriteLock = viewWriteLock;
+    }
+
+    private void lockForView() {
+        if (viewWriteLock != null) {
+            viewWriteLock.lock();
+        }
+    }
+
+    private void unlockForView() {
+        if (viewWriteLock != null) {
+            viewWriteLock.unlock();
+        }
+    }
+
+    protected static byte statusCode(Status status) {
+        return status == null ? NO_STATUS : (byte) status.ordinal();
+    }
+
+    protected void checkRow(int row) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size());
+        }
+    }
+
+    // Cargo backed by a row of the store: getters read the record, setters write it
+    private final class RecordView extends Cargo {
+        private final int row;
+
+        RecordView(int row) {
+            super(CargoRecordStore.this.getId(row), null, 0, null, null, CargoRecordStore.this.getCityId(row));
+            this.row = row;
+        }
+
+        @Override
+        public int getId() {
+            return CargoRecordStore.this.getId(row);
+        }
+
+        @Override
+        public void setId(int id) {
+            throw new UnsupportedOperationException("Kayıt ID'si değiştirilemez");
+        }
+
+        @Override
+        public long getDateMillis() {
+            return CargoRecordStore.this.getDateMillis(row);
+        }
+
+        @Override
+        public void setDateMillis(long dateMillis) {
+            long oldDateMillis;
+            lockForView();
+            try {
+                oldDateMillis = getDateMillis();
+                CargoRecordStore.this.setDateMillis(row, dateMillis);
+            } finally {
+                unlockForView();
+            }
+            if (getChangeListener() != null && oldDateMillis != dateMillis) {
+                getChangeListener().dateChanged(this, oldDateMillis, dateMillis);
+            }
+        }
+
+        @Override
+        public boolean isDelivered() {
+            return getStatus() == Status.DELIVERED;
+        }
+
+        @Override
+        public void setDelivered(boolean delivered) {
+            if (delivered) {
+                setStatus(Status.DELIVERED);
+            } else if (getStatus() == Status.DELIVERED) {
+                setStatus(Status.ONDELIVERY);
+            }
+        }
+
+        @Override
+        public Status getStatus() {
+            return CargoRecordStore.this.getStatus(row);
+        }
+
+        @Override
+        public void setStatus(Status status) {
+            Status oldStatus;
+            lockForView();
+            try {
+                oldStatus = getStatus();
+                CargoRecordStore.this.setStatus(row, status);
+            } finally {
+                unlockForView();
+            }
+            if (getChangeListener() != null && oldStatus != status) {
+                getChangeListener().statusChanged(this, oldStatus, status);
+            }
+        }
+
+        @Override
+        public int getDeliveryTime() {
+            return CargoRecordStore.this.getDeliveryTime(row);
+        }
+
+        @Override
+        public void setDeliveryTime(int deliveryTime) {
+            lockForView();
+            try {
+                CargoRecordStore.this.setDeliveryTime(row, deliveryTime);
+            } finally {
+                unlockForView();
+            }
+        }
+
+        @Override
+        public Client getClient() {
+            int clientId = getClientId(row);
+            return clientId == NO_CLIENT ? null : clientResolver.apply(clientId);
+        }
+
+        @Override
+        public void setClient(Client client) {
+            lockForView();
+            try {
+                setClientId(row, client == null ? NO_CLIENT : client.getId());
+            } finally {
+                unlockForView();
+            }
+        }
+
+        @Override
+        public int getCityId() {
+            return CargoRecordStore.this.getCityId(row);
+        }
+
+        // Views are not attached to the city tree, only the record changes
+        @Override
+        public void setCityId(int cityId) {
+            int oldCityId;
+            lockForView();
+            try {
+                oldCityId = getCityId();
+                CargoRecordStore.this.setCityId(row, cityId);
+            } finally {
+                unlockForView();
+            }
+            if (getChangeListener() != null && oldCityId != cityId) {
+                getChangeListener().cityChanged(this, oldCityId, cityId);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "model.Cargo{" +
+                    "id=" + getId() +
+                    ", date=" + getDate() +
+                    ", isDelivered=" + isDelivered() +
+                    ", status=" + getStatus() +
+                    ", deliveryTime=" + getDeliveryTime() +
+                    ", client=" + getClient() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package service;
+
+import model.Cargo;
+import model.Client;
+import model.Status;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Delivered and undelivered cargos kept sorted by ID and updated on every status change,
+// so reading them needs no filtering or sorting. Also counts both per client in O(1).
+public class CargoStatusViews {
+    private final ConcurrentSkipListMap<Integer, Cargo> delivered = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Cargo> undelivered = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, ClientCounters> countersByClient = new ConcurrentHashMap<>();
+
+    private static final class ClientCounters {
+        final AtomicInteger delivered = new AtomicInteger();
+        final AtomicInteger undelivered = new AtomicInteger();
+    }
+
+    public void add(Cargo cargo) {
+        ConcurrentSkipListMap<Integer, Cargo> view = viewFor(cargo.getStatus());
+        if (view != null && view.put(cargo.getId(), cargo) == null) {
+            adjustCounter(cargo.getClient(), cargo.getStatus(), 1);
+        }
+    }
+
+    public void remove(Cargo cargo) {
+        ConcurrentSkipListMap<Integer, Cargo> view = viewFor(cargo.getStatus());
+        if (view != null && view.remove(cargo.getId(), cargo)) {
+            adjustCounter(cargo.getClient(), cargo.getStatus(), -1);
+        }
+    }
+
+    // Moves the cargo between the views. Cargos that were never added are ignored
+    public void statusChanged(Cargo cargo, Status oldStatus, Status newStatus) {
+        ConcurrentSkipListMap<Integer, Cargo> oldView = viewFor(oldStatus);
+        ConcurrentSkipListMap<Integer, Cargo> newView = viewFor(newStatus);
+        if (oldView == newView || oldView == null || !oldView.remove(cargo.getId(), cargo)) {
+            return;
+        }
+        adjustCounter(cargo.getClient(), oldStatus, -1);
+        if (newView != null) {
+            newView.put(cargo.getId(), cargo);
+            adjustCounter(cargo.getClient(), newStatus, 1);
+        }
+    }
+
+    // Read-only, sorted by ID, reflects later changes. Time complexity O(k) to read k cargos
+    public Collection<Cargo> getDelivered() {
+        return Collections.unmodifiableCollection(delivered.values());
+    }
+
+    // Read-only, sorted by ID, reflects later changes. Time complexity O(k) to read k cargos
+    public Collection<Cargo> getUndelivered() {
+        return Collections.unmodifiableCollection(undelivered.values());
+    }
+
+    public int getDeliveredCount() {
+        return delivered.size();
+    }
+
+    public int getUndeliveredCount() {
+        return undelivered.size();
+    }
+
+    public int getDeliveredCount(int clientId) {
+        ClientCounters counters = countersByClient.get(clientId);
+        return counters == null ? 0 : counters.delivered.get();
+    }
+
+    public int getUndeliveredCount(int clientId) {
+        ClientCounters counters = countersByClient.get(clientId);
+        return counters == null ? 0 : counters.undelivered.get();
+    }
+
+    // Same split as CargoManager.getDeliveredCargos/getUndeliveredCargos; null status is in neither view
+    private ConcurrentSkipListMap<Integer, Cargo> viewFor(Status status) {
+        if (status == null) {
+            return null;
+        }
+        return status == Status.DELIVERED ? delivered : undelivered;
+    }
+
+    private void adjustCounter(Client client, Status status, int delta) {
+        if (client == null) {
+            return;
+        }
+        ClientCounters counters = countersByClient.computeIfAbsent(client.getId(), id -> new ClientCounters());
+        (status == Status.DELIVERED ? counters.delivered : counters.undelivered).addAndGet(delta);
+    }
+}
@@ -0,0 +1,130 @@
+package service;
+
+import model.Cargo;
+
+import java.util.Arrays;
+
+// Global cargo ID -> cargo index (open addressing with linear probing, int keys, no boxing)
+public class CargoTrackingIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Cargo[] values; // null means the slot is empty
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public CargoTrackingIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public CargoTrackingIndex(int expectedSize) {
+        int capacity = tableSizeFor((int) Math.min(1 << 30, (long) (expectedSize / LOAD_FACTOR) + 1));
+        allocate(capacity);
+    }
+
+    // Add or replace the cargo for its ID
+    public void put(Cargo cargo) {
+        int id = cargo.getId();
+        int slot = findSlot(id);
+        if (values[slot] == null) {
+            keys[slot] = id;
+            size++;
+        }
+        values[slot] = cargo;
+
+        if (size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    // Find cargo by ID. Time complexity O(1) on average
+    public Cargo get(int id) {
+        return values[findSlot(id)];
+    }
+
+    public boolean contains(int id) {
+        return get(id) != null;
+    }
+
+    // Remove cargo by ID, shifting the following entries back so probing chains stay intact
+    public Cargo remove(int id) {
+        int slot = findSlot(id);
+        Cargo removed = values[slot];
+        if (removed == null) {
+            return null;
+        }
+
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry into the gap if its home slot is not between the gap and its current slot
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // Return the slot holding the ID, or the empty slot where it would be inserted
+    private int findSlot(int id) {
+        int slot = hash(id) & mask;
+        while (values[slot] != null && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Cargo[] oldValues = values;
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Cargo[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Spread sequential IDs over the table (murmur3 finalizer)
+    private static int hash(int id) {
+        int h = id;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        return Math.max(n, INITIAL_CAPACITY);
+    }
+}
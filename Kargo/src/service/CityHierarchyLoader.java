@@ -0,0 +1,439 @@
+package service;
+
+import model.CityNode;
+import model.CityTree;
+import model.FlatCityTree;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Builds a CityTree from a file of (id, parentId, name) rows, read once through a memory-mapped buffer.
+//
+// CSV: one "id,parentId,name" row per line. parentId is empty or -1 for the root. Blank lines, lines
+// starting with '#' and a header line are skipped. The name is the rest of the line and may be quoted
+// ("..." with "" for a quote).
+// Binary: magic "KCTY", format version, row count, then for every row id, parentId (-1 for the root),
+// name length (unsigned short) and the UTF-8 name. Everything is big-endian.
+//
+// Rows may come in any order. Duplicate IDs, unknown parents (orphans), a missing or second root
+// and cycles are rejected with a HierarchyException that names the offending row.
+public final class CityHierarchyLoader {
+    public static final int NO_PARENT = -1;
+
+    private static final int MAGIC = 0x4B435459; // "KCTY"
+    private static final int FORMAT_VERSION = 1;
+    private static final long INVALID_NUMBER = Long.MIN_VALUE;
+    private static final int CSV_WINDOW = 1 << 16;
+
+    // Invalid file content. The line is the CSV line or binary row number (1-based), 0 for the whole file
+    public static final class HierarchyException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int line;
+
+        HierarchyException(String message, int line) {
+            super(line > 0 ? "Satır " + line + ": " + message : message);
+            this.line = line;
+        }
+
+        public int getLine() {
+            return line;
+        }
+    }
+
+    private CityHierarchyLoader() {
+    }
+
+    // Binary when the file starts with the magic number, CSV otherwise
+    public static CityTree load(Path file) throws IOException {
+        ByteBuffer buffer = map(file);
+        if (buffer.remaining() >= 4 && buffer.getInt(0) == MAGIC) {
+            return readBinary(buffer);
+        }
+        return readCsv(buffer);
+    }
+
+    public static CityTree loadCsv(Path file) throws IOException {
+        return readCsv(map(file));
+    }
+
+    public static CityTree loadBinary(Path file) throws IOException {
+        return readBinary(map(file));
+    }
+
+    // Write the tree in the binary form, parents before children
+    public static void writeBinary(CityTree cityTree, Path file) throws IOException {
+        FlatCityTree flat = cityTree.flatten();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(flat.size());
+            for (int pos = 0; pos < flat.size(); pos++) {
+                int parent = flat.parent(pos);
+                String name = flat.node(pos).getCityName();
+                byte[] nameBytes = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+                if (nameBytes.length > 0xFFFF) {
+                    throw new IllegalArgumentException("Şehir adı çok uzun: ID=" + flat.cityId(pos));
+                }
+                out.writeInt(flat.cityId(pos));
+                out.writeInt(parent == FlatCityTree.NONE ? NO_PARENT : flat.cityId(parent));
+                out.writeShort(nameBytes.length);
+                out.write(nameBytes);
+            }
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new HierarchyException("Dosya çok büyük: " + size + " bayt", 0);
+            }
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    // The mapped file is copied into a small window in bulk and parsed from there; only a line
+    // that does not fit the window makes it grow
+    private static CityTree readCsv(ByteBuffer buffer) throws HierarchyException {
+        int limit = buffer.limit();
+        Rows rows = new Rows(Math.max(16, limit / 24));
+        byte[] window = new byte[CSV_WINDOW];
+        int copied = 0; // Bytes of the file already copied into the window
+        int count = 0;  // Bytes in the window
+        int start = 0;  // Start of the current line in the window
+        int scan = 0;   // Where to continue looking for its end
+
+        // Skip the UTF-8 byte order mark
+        if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            copied = 3;
+        }
+
+        int line = 0;
+        boolean firstRow = true;
+        while (true) {
+            int end = indexOf(window, '\n', scan, count);
+            if (end < 0) {
+                if (copied < limit) {
+                    // Move the unfinished line to the front and copy the next part of the file after it
+                    count -= start;
+                    if (count == window.length) {
+                        window = Arrays.copyOf(window, window.length * 2);
+                    } else {
+                        System.arraycopy(window, start, window, 0, count);
+                    }
+                    start = 0;
+                    scan = count;
+                    int n = Math.min(window.length - count, limit - copied);
+                    buffer.get(copied, window, count, n);
+                    copied += n;
+                    count += n;
+                    continue;
+                }
+                if (start == count) {
+                    break;
+                }
+                end = count; // Last line without a line break
+            }
+
+            line++;
+            int next = end + 1;
+            if (end > start && window[end - 1] == '\r') {
+                end--;
+            }
+            if (parseCsvRow(window, start, end, line, firstRow, rows)) {
+                firstRow = false;
+            }
+            start = next;
+            scan = next;
+        }
+        return rows.build();
+    }
+
+    // Returns false for blank and comment lines
+    private static boolean parseCsvRow(byte[] bytes, int start, int end, int line, boolean firstRow, Rows rows)
+            throws HierarchyException {
+        int from = skipSpaces(bytes, start, end);
+        if (from == end || bytes[from] == '#') {
+            return false;
+        }
+
+        int firstComma = indexOf(bytes, ',', from, end);
+        int secondComma = firstComma < 0 ? -1 : indexOf(bytes, ',', firstComma + 1, end);
+        long id = firstComma < 0 ? INVALID_NUMBER : parseNumber(bytes, from, firstComma);
+        if (id == INVALID_NUMBER && firstRow) {
+            // Header line such as "id,parentId,name"
+            return true;
+        }
+        if (secondComma < 0) {
+            throw new HierarchyException("Eksik alan, beklenen biçim: id,parentId,name", line);
+        }
+        if (id == INVALID_NUMBER) {
+            throw new HierarchyException("Geçersiz şehir ID'si: " + text(bytes, from, firstComma), line);
+        }
+
+        long parentId = NO_PARENT;
+        if (skipSpaces(bytes, firstComma + 1, secondComma) != secondComma) {
+            parentId = parseNumber(bytes, firstComma + 1, secondComma);
+            if (parentId == INVALID_NUMBER) {
+                throw new HierarchyException("Geçersiz üst şehir ID'si: " + text(bytes, firstComma + 1, secondComma), line);
+            }
+        }
+
+        rows.add((int) id, (int) parentId, name(bytes, secondComma + 1, end, line), line);
+        return true;
+    }
+
+    private static CityTree readBinary(ByteBuffer buffer) throws HierarchyException {
+        byte[] scratch = new byte[256];
+        int row = 0;
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new HierarchyException("İkili şehir dosyası değil", 0);
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new HierarchyException("Desteklenmeyen dosya sürümü: " + version, 0);
+            }
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new HierarchyException("Geçersiz kayıt sayısı: " + count, 0);
+            }
+
+            Rows rows = new Rows(Math.max(16, Math.min(count, buffer.remaining() / 10)));
+            for (row = 1; row <= count; row++) {
+                int id = buffer.getInt();
+                int parentId = buffer.getInt();
+                int length = buffer.getShort() & 0xFFFF;
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                rows.add(id, parentId, new String(scratch, 0, length, StandardCharsets.UTF_8), row);
+            }
+            if (buffer.hasRemaining()) {
+                throw new HierarchyException("Son kayıttan sonra fazladan " + buffer.remaining() + " bayt var", 0);
+            }
+            return rows.build();
+        } catch (BufferUnderflowException e) {
+            throw new HierarchyException("Dosya beklenenden kısa", row);
+        }
+    }
+
+    // Rows in file order, kept in parallel arrays until the tree is built
+    private static final class Rows {
+        private int[] ids;
+        private int[] parentIds;
+        private String[] names;
+        private int[] lines;
+        private int size;
+        private final IntIntMap rowsById = new IntIntMap();
+
+        Rows(int capacity) {
+            ids = new int[capacity];
+            parentIds = new int[capacity];
+            names = new String[capacity];
+            lines = new int[capacity];
+        }
+
+        void add(int id, int parentId, String name, int line) throws HierarchyException {
+            if (id < 0) {
+                throw new HierarchyException("Geçersiz şehir ID'si: " + id, line);
+            }
+            if (parentId < NO_PARENT) {
+                throw new HierarchyException("Geçersiz üst şehir ID'si: " + parentId, line);
+            }
+            int existing = rowsById.get(id);
+            if (existing >= 0) {
+                throw new HierarchyException("Tekrarlanan şehir ID'si: " + id + " (ilk kez satır " + lines[existing] + ")", line);
+            }
+
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                parentIds = Arrays.copyOf(parentIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+            }
+            ids[size] = id;
+            parentIds[size] = parentId;
+            names[size] = name;
+            lines[size] = line;
+            rowsById.put(id, size);
+            size++;
+        }
+
+        // Link every row to its parent row, then create the nodes top-down so each depth is set correctly
+        CityTree build() throws HierarchyException {
+            if (size == 0) {
+                throw new HierarchyException("Dosyada şehir yok", 0);
+            }
+
+            int root = -1;
+            int[] parentRows = new int[size];
+            int[] offsets = new int[size + 1];
+            for (int row = 0; row < size; row++) {
+                if (parentIds[row] == NO_PARENT) {
+                    if (root >= 0) {
+                        throw new HierarchyException("İkinci kök şehir: ID=" + ids[row]
+                                + " (ilk kök ID=" + ids[root] + ", satır " + lines[root] + ")", lines[row]);
+                    }
+                    root = row;
+                    parentRows[row] = -1;
+                    continue;
+                }
+                int parentRow = rowsById.get(parentIds[row]);
+                if (parentRow < 0) {
+                    throw new HierarchyException("Üst şehir bulunamadı: ID=" + ids[row] + ", üst ID=" + parentIds[row], lines[row]);
+                }
+                parentRows[row] = parentRow;
+                offsets[parentRow + 1]++;
+            }
+            if (root < 0) {
+                throw new HierarchyException("Kök şehir yok (üst ID'si boş veya -1 olan satır bulunmalı)", 0);
+            }
+
+            // Children of every row in file order, in compressed sparse row form
+            for (int row = 0; row < size; row++) {
+                offsets[row + 1] += offsets[row];
+            }
+            int[] children = new int[size];
+            int[] fill = Arrays.copyOf(offsets, size);
+            for (int row = 0; row < size; row++) {
+                if (row != root) {
+                    children[fill[parentRows[row]]++] = row;
+                }
+            }
+
+            // Breadth-first from the root: a parent always has its depth before its children are attached
+            CityNode[] nodes = new CityNode[size];
+            int[] queue = new int[size];
+            int head = 0;
+            int tail = 0;
+            nodes[root] = new CityNode(names[root], ids[root]);
+            queue[tail++] = root;
+            while (head < tail) {
+                int row = queue[head++];
+                for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                    int child = children[i];
+                    nodes[child] = new CityNode(names[child], ids[child]);
+                    nodes[row].addChild(nodes[child]);
+                    queue[tail++] = child;
+                }
+            }
+
+            // Every other row has a known parent, so a row the root cannot reach sits on a parent cycle
+            if (tail < size) {
+                int row = 0;
+                while (nodes[row] != null) {
+                    row++;
+                }
+                throw cycleFrom(row, parentRows);
+            }
+            return new CityTree(nodes[root]);
+        }
+
+        private HierarchyException cycleFrom(int row, int[] parentRows) {
+            boolean[] seen = new boolean[size];
+            while (!seen[row]) {
+                seen[row] = true;
+                row = parentRows[row];
+            }
+
+            StringBuilder cycle = new StringBuilder().append(ids[row]);
+            for (int r = parentRows[row]; ; r = parentRows[r]) {
+                cycle.append(" -> ").append(ids[r]);
+                if (r == row) {
+                    break;
+                }
+            }
+            return new HierarchyException("Hiyerarşide döngü var: " + cycle, lines[row]);
+        }
+    }
+
+    // The name is the rest of the line, trimmed, and may be quoted. Quotes are removed in place
+    private static String name(byte[] bytes, int from, int to, int line) throws HierarchyException {
+        from = skipSpaces(bytes, from, to);
+        while (to > from && isSpace(bytes[to - 1])) {
+            to--;
+        }
+        if (from == to || bytes[from] != '"') {
+            return text(bytes, from, to);
+        }
+
+        if (to - from < 2 || bytes[to - 1] != '"') {
+            throw new HierarchyException("Kapanmayan tırnak", line);
+        }
+        int length = 0;
+        for (int i = from + 1; i < to - 1; i++) {
+            if (bytes[i] == '"') {
+                if (i + 1 >= to - 1 || bytes[i + 1] != '"') {
+                    throw new HierarchyException("Tırnak içinde tek \" kullanılamaz, \"\" yazılmalı", line);
+                }
+                i++;
+            }
+            bytes[from + length++] = bytes[i];
+        }
+        return text(bytes, from, from + length);
+    }
+
+    private static String text(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    // Optional sign and digits with surrounding spaces; INVALID_NUMBER if anything else or out of int range
+    private static long parseNumber(byte[] bytes, int from, int to) {
+        from = skipSpaces(bytes, from, to);
+        while (to > from && isSpace(bytes[to - 1])) {
+            to--;
+        }
+        boolean negative = from < to && bytes[from] == '-';
+        if (negative) {
+            from++;
+        }
+        if (from == to || to - from > 10) {
+            return INVALID_NUMBER;
+        }
+
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_NUMBER;
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? INVALID_NUMBER : value;
+    }
+
+    private static int indexOf(byte[] bytes, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(byte[] bytes, int from, int to) {
+        while (from < to && isSpace(bytes[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
@@ -0,0 +1,154 @@
+package service;
+
+import model.Status;
+
+import java.util.Arrays;
+
+// Cargo records stored column by column in primitive arrays (struct of arrays).
+// A record costs 25 bytes of column data (id 4, date 8, status 1, city 4, delivery time 4, client 4)
+// plus its slot in the ID map, instead of a Cargo object, a Date object and their references.
+public class ColumnarCargoStore extends CargoRecordStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] ids;
+    private long[] dates;      // Epoch milliseconds, NO_DATE if unknown
+    private byte[] statuses;   // Status ordinal, NO_STATUS if unknown
+    private int[] cityIds;
+    private int[] deliveryTimes;
+    private int[] clientIds;   // NO_CLIENT if unknown
+    private int size;
+
+    private final IntIntMap rowsById = new IntIntMap();
+
+    public ColumnarCargoStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ColumnarCargoStore(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        ids = new int[capacity];
+        dates = new long[capacity];
+        statuses = new byte[capacity];
+        cityIds = new int[capacity];
+        deliveryTimes = new int[capacity];
+        clientIds = new int[capacity];
+    }
+
+    @Override
+    public int add(int id, long dateMillis, Status status, int cityId, int deliveryTime, int clientId) {
+        int row = rowsById.get(id);
+        if (row < 0) {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowsById.put(id, row);
+        }
+        ids[row] = id;
+        dates[row] = dateMillis;
+        statuses[row] = statusCode(status);
+        cityIds[row] = cityId;
+        deliveryTimes[row] = deliveryTime;
+        clientIds[row] = clientId;
+        return row;
+    }
+
+    @Override
+    public int findRow(int id) {
+        return rowsById.get(id);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getId(int row) {
+        checkRow(row);
+        return ids[row];
+    }
+
+    @Override
+    public long getDateMillis(int row) {
+        checkRow(row);
+        return dates[row];
+    }
+
+    @Override
+    public void setDateMillis(int row, long dateMillis) {
+        checkRow(row);
+        dates[row] = dateMillis;
+    }
+
+    @Override
+    public int getCityId(int row) {
+        checkRow(row);
+        return cityIds[row];
+    }
+
+    @Override
+    public void setCityId(int row, int cityId) {
+        checkRow(row);
+        cityIds[row] = cityId;
+    }
+
+    @Override
+    public int getDeliveryTime(int row) {
+        checkRow(row);
+        return deliveryTimes[row];
+    }
+
+    @Override
+    public void setDeliveryTime(int row, int deliveryTime) {
+        checkRow(row);
+        deliveryTimes[row] = deliveryTime;
+    }
+
+    @Override
+    public int getClientId(int row) {
+        checkRow(row);
+        return clientIds[row];
+    }
+
+    @Override
+    public void setClientId(int row, int clientId) {
+        checkRow(row);
+        clientIds[row] = clientId;
+    }
+
+    @Override
+    protected byte getStatusCode(int row) {
+        checkRow(row);
+        return statuses[row];
+    }
+
+    @Override
+    protected void setStatusCode(int row, byte code) {
+        checkRow(row);
+        statuses[row] = code;
+    }
+
+    // Scans only the status column
+    @Override
+    public int countByStatus(Status status) {
+        byte code = statusCode(status);
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (statuses[row] == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, newCapacity);
+            dates = Arrays.copyOf(dates, newCapacity);
+            statuses = Arrays.copyOf(statuses, newCapacity);
+            cityIds = Arrays.copyOf(cityIds, newCapacity);
+            deliveryTimes = Arrays.copyOf(deliveryTimes, newCapacity);
+            clientIds = Arrays.copyOf(clientIds, newCapacity);
+        }
+    }
+}
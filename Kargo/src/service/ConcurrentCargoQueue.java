@@ -0,0 +1,199 @@
+package service;
+
+import model.Cargo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread-safe queue for many producers and consumers, built from several lock-free skip lists (shards).
+// offer puts the cargo into a random shard. poll looks at the heads of two random shards and takes
+// the one with the smaller delivery time ("MultiQueue" scheme).
+//
+// Relaxation bound: each shard is strictly ordered by (delivery time, arrival), but across shards the
+// order is relaxed. A poll returns a cargo whose expected rank among all queued cargos is O(shardCount),
+// so cargos with a clearly smaller delivery time are still served first. With shardCount = 1 the order
+// is exact. poll only returns null after every shard has been seen empty, so no cargo is skipped.
+public class ConcurrentCargoQueue implements CargoQueue {
+    static final int DEFAULT_POLL_ATTEMPTS = 4;
+
+    private static final class Key implements Comparable<Key> {
+        final int time;
+        final long seq;
+        final int shard;
+        final Cargo cargo;
+
+        Key(int time, long seq, int shard, Cargo cargo) {
+            this.time = time;
+            this.seq = seq;
+            this.shard = shard;
+            this.cargo = cargo;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (time != other.time) {
+                return time < other.time ? -1 : 1;
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    private final ConcurrentSkipListMap<Key, Cargo>[] shards;
+    private final AtomicLong[] sequences; // Per shard, so producers do not share one counter
+    private final int pollAttempts; // Two-choice tries before the full scan
+    private final LongAdder size = new LongAdder();
+    private final ConcurrentHashMap<Integer, Key> keys = new ConcurrentHashMap<>(); // Cargo ID -> its entry
+
+    // Two shards per core keeps collisions between threads rare (measured with CargoQueueBenchmark)
+    public ConcurrentCargoQueue() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public ConcurrentCargoQueue(int shardCount) {
+        this(shardCount, DEFAULT_POLL_ATTEMPTS);
+    }
+
+    // Used by CargoQueueBenchmark to compare settings
+    @SuppressWarnings("unchecked")
+    ConcurrentCargoQueue(int shardCount, int pollAttempts) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard sayısı en az 1 olmalı: " + shardCount);
+        }
+        this.shards = (ConcurrentSkipListMap<Key, Cargo>[]) new ConcurrentSkipListMap<?, ?>[shardCount];
+        this.sequences = new AtomicLong[shardCount];
+        this.pollAttempts = pollAttempts;
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentSkipListMap<>();
+            sequences[i] = new AtomicLong();
+        }
+    }
+
+    @Override
+    public void offer(Cargo cargo) {
+        int shard = shards.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(shards.length);
+        Key key = new Key(cargo.getDeliveryTime(), sequences[shard].getAndIncrement(), shard, cargo);
+        if (keys.putIfAbsent(cargo.getId(), key) != null) {
+            throw new IllegalArgumentException("Kargo zaten kuyrukta: ID=" + cargo.getId());
+        }
+        size.increment();
+        shards[shard].put(key, cargo);
+    }
+
+    @Override
+    public Cargo poll() {
+        if (shards.length > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            // A few tries with two random shards, then fall back to a full scan
+            for (int attempt = 0; attempt < pollAttempts; attempt++) {
+                int a = random.nextInt(shards.length);
+                int b = random.nextInt(shards.length);
+                Map.Entry<Key, Cargo> headA = shards[a].firstEntry();
+                Map.Entry<Key, Cargo> headB = shards[b].firstEntry();
+                if (headA == null && headB == null) {
+                    break;
+                }
+                int chosen = headB == null || (headA != null && headA.getKey().compareTo(headB.getKey()) <= 0) ? a : b;
+                Cargo cargo = pollShard(chosen);
+                if (cargo != null) {
+                    return cargo;
+                }
+            }
+        }
+
+        int start = shards.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            Cargo cargo = pollShard((start + i) % shards.length);
+            if (cargo != null) {
+                return cargo;
+            }
+        }
+        return null;
+    }
+
+    // Smallest head over all shards. Time complexity O(shardCount)
+    @Override
+    public Cargo peek() {
+        Map.Entry<Key, Cargo> best = null;
+        for (ConcurrentSkipListMap<Key, Cargo> shard : shards) {
+            Map.Entry<Key, Cargo> head = shard.firstEntry();
+            if (head != null && (best == null || head.getKey().compareTo(best.getKey()) < 0)) {
+                best = head;
+            }
+        }
+        return best == null ? null : best.getValue();
+    }
+
+    // Exact when no other thread is changing the queue
+    @Override
+    public int size() {
+        return (int) Math.max(0, size.sum());
+    }
+
+    // Whoever takes the entry out of its shard first (poll, remove or update) owns the cargo.
+    // Time complexity O(log n)
+    @Override
+    public Cargo remove(int cargoId) {
+        Key key = claim(cargoId);
+        if (key == null) {
+            return null;
+        }
+        keys.remove(cargoId, key);
+        size.decrement();
+        return key.cargo;
+    }
+
+    // The cargo is taken out and put back with the new time in the same shard, so a concurrent
+    // poll may briefly not see it. Time complexity O(log n)
+    @Override
+    public boolean updateDeliveryTime(int cargoId, int newDeliveryTime) {
+        Key old = claim(cargoId);
+        if (old == null) {
+            return false;
+        }
+        Key key = new Key(newDeliveryTime, sequences[old.shard].getAndIncrement(), old.shard, old.cargo);
+        old.cargo.setDeliveryTime(newDeliveryTime);
+        keys.replace(cargoId, old, key);
+        shards[old.shard].put(key, old.cargo);
+        return true;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private Cargo pollShard(int shard) {
+        Map.Entry<Key, Cargo> head = shards[shard].pollFirstEntry();
+        if (head == null) {
+            return null;
+        }
+        keys.remove(head.getValue().getId(), head.getKey());
+        size.decrement();
+        return head.getValue();
+    }
+
+    // Take the entry of the cargo out of its shard, or return null if the cargo is not queued.
+    // If another thread took it first, wait until that thread has finished with the ID
+    private Key claim(int cargoId) {
+        while (true) {
+            Key key = keys.get(cargoId);
+            if (key == null) {
+                return null;
+            }
+            if (shards[key.shard].remove(key) != null) {
+                return key;
+            }
+            if (keys.get(cargoId) == key) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
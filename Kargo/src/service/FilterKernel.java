@@ -0,0 +1,10 @@
+package service;
+
+// Predicate kernels used by CargoFilter. Each one clears the selection bits of rows that do not match
+interface FilterKernel {
+    void statusEquals(byte[] statuses, byte status, long[] selection);
+
+    void cityIn(int[] cityIds, int[] wanted, long[] selection);
+
+    void dateBetween(long[] dates, long from, long to, long[] selection);
+}
@@ -0,0 +1,109 @@
+package service;
+
+import model.Cargo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Binary heap ordered by delivery time. O(log n) offer and poll, no order among equal times.
+// Cancelled and reprioritized cargos are removed lazily: every cargo has one live entry, older
+// entries stay in the heap and are skipped when they reach the top
+public class HeapCargoQueue implements CargoQueue {
+    private static final class Entry {
+        final Cargo cargo;
+        final int time; // Delivery time used for ordering
+
+        Entry(Cargo cargo, int time) {
+            this.cargo = cargo;
+            this.time = time;
+        }
+    }
+
+    private PriorityQueue<Entry> heap;
+    private final Map<Integer, Entry> live = new HashMap<>(); // Cargo ID -> its current entry
+    private int stale; // Entries in the heap that are no longer live
+
+    public HeapCargoQueue() {
+        this.heap = new PriorityQueue<>((a, b) -> Integer.compare(a.time, b.time));
+    }
+
+    @Override
+    public void offer(Cargo cargo) {
+        if (live.containsKey(cargo.getId())) {
+            throw new IllegalArgumentException("Kargo zaten kuyrukta: ID=" + cargo.getId());
+        }
+        Entry entry = new Entry(cargo, cargo.getDeliveryTime());
+        live.put(cargo.getId(), entry);
+        heap.offer(entry);
+    }
+
+    @Override
+    public Cargo poll() {
+        Entry entry = top();
+        if (entry == null) {
+            return null;
+        }
+        heap.poll();
+        live.remove(entry.cargo.getId());
+        return entry.cargo;
+    }
+
+    @Override
+    public Cargo peek() {
+        Entry entry = top();
+        return entry == null ? null : entry.cargo;
+    }
+
+    @Override
+    public int size() {
+        return live.size();
+    }
+
+    // The entry stays in the heap until it reaches the top. Time complexity O(1)
+    @Override
+    public Cargo remove(int cargoId) {
+        Entry entry = live.remove(cargoId);
+        if (entry == null) {
+            return null;
+        }
+        markStale();
+        return entry.cargo;
+    }
+
+    // Adds a new entry and leaves the old one behind. Time complexity O(log n)
+    @Override
+    public boolean updateDeliveryTime(int cargoId, int newDeliveryTime) {
+        Entry old = live.get(cargoId);
+        if (old == null) {
+            return false;
+        }
+        Entry entry = new Entry(old.cargo, newDeliveryTime);
+        old.cargo.setDeliveryTime(newDeliveryTime);
+        live.put(cargoId, entry);
+        heap.offer(entry);
+        markStale();
+        return true;
+    }
+
+    // Smallest live entry, dropping the stale ones above it
+    private Entry top() {
+        Entry entry;
+        while ((entry = heap.peek()) != null && live.get(entry.cargo.getId()) != entry) {
+            heap.poll();
+            stale--;
+        }
+        return entry;
+    }
+
+    // Rebuild the heap once stale entries outnumber live ones, so memory stays O(size)
+    private void markStale() {
+        if (++stale <= live.size() + 64) {
+            return;
+        }
+        PriorityQueue<Entry> rebuilt = new PriorityQueue<>(Math.max(1, live.size()), heap.comparator());
+        rebuilt.addAll(live.values());
+        heap = rebuilt;
+        stale = 0;
+    }
+}
@@ -0,0 +1,199 @@
+package service;
+
+import model.Cargo;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// Binary heap ordered by delivery time that remembers where each cargo is stored.
+// The heap keeps its own copy of the delivery time, so cargos can be cancelled or
+// given a new delivery time in O(log n) without corrupting the heap order.
+// Cargos with the same delivery time come out in arrival order.
+public class IndexedCargoHeap implements CargoQueue {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Cargo[] cargos;
+    private int[] times;  // Delivery time used for ordering
+    private long[] order; // Arrival sequence, breaks ties between equal times
+    private int size;
+    private long nextOrder;
+    private final IntIntMap positions = new IntIntMap(); // Cargo ID -> heap position
+
+    public IndexedCargoHeap() {
+        this.cargos = new Cargo[INITIAL_CAPACITY];
+        this.times = new int[INITIAL_CAPACITY];
+        this.order = new long[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public void offer(Cargo cargo) {
+        if (positions.get(cargo.getId()) >= 0) {
+            throw new IllegalArgumentException("Kargo zaten kuyrukta: ID=" + cargo.getId());
+        }
+        ensureCapacity(size + 1);
+        siftUp(append(cargo));
+    }
+
+    // Add a batch. Large batches are appended and the whole heap is rebuilt bottom-up in O(n)
+    @Override
+    public void offerAll(Collection<Cargo> batch) {
+        if (batch.size() < size) {
+            for (Cargo cargo : batch) {
+                offer(cargo);
+            }
+            return;
+        }
+
+        ensureCapacity(size + batch.size());
+        try {
+            for (Cargo cargo : batch) {
+                if (positions.get(cargo.getId()) >= 0) {
+                    throw new IllegalArgumentException("Kargo zaten kuyrukta: ID=" + cargo.getId());
+                }
+                append(cargo);
+            }
+        } finally {
+            // Restore the heap order even if the batch stopped half way
+            for (int pos = (size >>> 1) - 1; pos >= 0; pos--) {
+                siftDown(pos);
+            }
+        }
+    }
+
+    @Override
+    public Cargo poll() {
+        if (size == 0) {
+            return null;
+        }
+        return removeAt(0);
+    }
+
+    @Override
+    public Cargo peek() {
+        return size == 0 ? null : cargos[0];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Remove the cargo with the given ID. Time complexity O(log n)
+    @Override
+    public Cargo remove(int cargoId) {
+        int pos = positions.get(cargoId);
+        return pos < 0 ? null : removeAt(pos);
+    }
+
+    // Change the delivery time of a queued cargo. Time complexity O(log n)
+    @Override
+    public boolean updateDeliveryTime(int cargoId, int newDeliveryTime) {
+        int pos = positions.get(cargoId);
+        if (pos < 0) {
+            return false;
+        }
+
+        int oldTime = times[pos];
+        times[pos] = newDeliveryTime;
+        cargos[pos].setDeliveryTime(newDeliveryTime);
+        if (newDeliveryTime < oldTime) {
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+        return true;
+    }
+
+    public boolean contains(int cargoId) {
+        return positions.get(cargoId) >= 0;
+    }
+
+    private int append(Cargo cargo) {
+        int pos = size++;
+        cargos[pos] = cargo;
+        times[pos] = cargo.getDeliveryTime();
+        order[pos] = nextOrder++;
+        positions.put(cargo.getId(), pos);
+        return pos;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > cargos.length) {
+            int newCapacity = Math.max(capacity, cargos.length * 2);
+            cargos = Arrays.copyOf(cargos, newCapacity);
+            times = Arrays.copyOf(times, newCapacity);
+            order = Arrays.copyOf(order, newCapacity);
+        }
+    }
+
+    private Cargo removeAt(int pos) {
+        Cargo removed = cargos[pos];
+        positions.remove(removed.getId());
+
+        int last = --size;
+        if (pos != last) {
+            move(last, pos);
+            // The moved cargo may belong above or below its new position
+            if (!siftUp(pos)) {
+                siftDown(pos);
+            }
+        }
+        cargos[last] = null;
+        return removed;
+    }
+
+    // Returns true if the cargo moved up
+    private boolean siftUp(int pos) {
+        int start = pos;
+        Cargo cargo = cargos[pos];
+        int time = times[pos];
+        long seq = order[pos];
+
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!less(time, seq, times[parent], order[parent])) {
+                break;
+            }
+            move(parent, pos);
+            pos = parent;
+        }
+        place(cargo, time, seq, pos);
+        return pos != start;
+    }
+
+    private void siftDown(int pos) {
+        Cargo cargo = cargos[pos];
+        int time = times[pos];
+        long seq = order[pos];
+        int half = size >>> 1;
+
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && less(times[right], order[right], times[child], order[child])) {
+                child = right;
+            }
+            if (!less(times[child], order[child], time, seq)) {
+                break;
+            }
+            move(child, pos);
+            pos = child;
+        }
+        place(cargo, time, seq, pos);
+    }
+
+    private void move(int from, int to) {
+        place(cargos[from], times[from], order[from], to);
+    }
+
+    private void place(Cargo cargo, int time, long seq, int pos) {
+        cargos[pos] = cargo;
+        times[pos] = time;
+        order[pos] = seq;
+        positions.put(cargo.getId(), pos);
+    }
+
+    private static boolean less(int timeA, long seqA, int timeB, long seqB) {
+        return timeA < timeB || (timeA == timeB && seqA < seqB);
+    }
+}
@@ -0,0 +1,88 @@
+package service;
+
+import java.util.Arrays;
+
+// Int -> int hash map (open addressing, no boxing). get returns -1 for missing keys,
+// so values must not be negative
+final class IntIntMap {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] values = filledWithEmpty(INITIAL_CAPACITY);
+    private int size;
+
+    int get(int key) {
+        return values[findSlot(key)];
+    }
+
+    void put(int key, int value) {
+        int slot = findSlot(key);
+        if (values[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        if (size > keys.length >>> 1) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void remove(int key) {
+        int mask = keys.length - 1;
+        int gap = findSlot(key);
+        if (values[gap] == EMPTY) {
+            return;
+        }
+        int next = (gap + 1) & mask;
+        while (values[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = EMPTY;
+        size--;
+    }
+
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = filledWithEmpty(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int[] filledWithEmpty(int capacity) {
+        int[] array = new int[capacity];
+        Arrays.fill(array, EMPTY);
+        return array;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,301 @@
+package service;
+
+import model.Status;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.util.Arrays;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+// Cargo records stored outside the Java heap with the Foreign Function & Memory API.
+// Records are fixed 32 byte structs in large chunks, the ID index is an off-heap hash table,
+// so millions of records add almost nothing for the garbage collector to trace or copy.
+// The memory is freed deterministically by close(); a closed arena can no longer be read.
+// Not thread-safe by itself, CargoManager guards it with its tracking lock.
+public class OffHeapCargoArena extends CargoRecordStore implements AutoCloseable {
+    static final StructLayout RECORD = MemoryLayout.structLayout(
+            JAVA_INT.withName("id"),
+            JAVA_BYTE.withName("status"),
+            MemoryLayout.paddingLayout(3),
+            JAVA_INT.withName("cityId"),
+            JAVA_INT.withName("deliveryTime"),
+            JAVA_INT.withName("clientId"),
+            MemoryLayout.paddingLayout(4),
+            JAVA_LONG.withName("date"));
+
+    private static final long RECORD_SIZE = RECORD.byteSize();
+    private static final long ID = RECORD.byteOffset(groupElement("id"));
+    private static final long STATUS = RECORD.byteOffset(groupElement("status"));
+    private static final long CITY_ID = RECORD.byteOffset(groupElement("cityId"));
+    private static final long DELIVERY_TIME = RECORD.byteOffset(groupElement("deliveryTime"));
+    private static final long CLIENT_ID = RECORD.byteOffset(groupElement("clientId"));
+    private static final long DATE = RECORD.byteOffset(groupElement("date"));
+
+    private static final int CHUNK_SHIFT = 16; // 65536 records (2 MiB) per chunk
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    // Index entries pack (id << 32 | row); -1 can never be a real entry because rows are positive
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final Arena recordArena = Arena.ofShared();
+    private MemorySegment[] chunks = new MemorySegment[8];
+    private int size;
+
+    private Arena indexArena;
+    private MemorySegment index;
+    private int indexMask;
+    private boolean closed;
+
+    public OffHeapCargoArena() {
+        this(INITIAL_INDEX_CAPACITY);
+    }
+
+    public OffHeapCargoArena(int expectedSize) {
+        allocateIndex(tableSizeFor((long) Math.max(expectedSize, 16) * 2));
+    }
+
+    @Override
+    public int add(int id, long dateMillis, Status status, int cityId, int deliveryTime, int clientId) {
+        checkOpen();
+        int row = findRow(id);
+        if (row < 0) {
+            row = size;
+            ensureChunk(row);
+            size++;
+            if ((long) size * 2 > indexMask + 1L) {
+                rehash((indexMask + 1) << 1);
+            }
+            insert(id, row);
+        }
+        MemorySegment chunk = chunkOf(row);
+        long base = offsetOf(row);
+        chunk.set(JAVA_INT, base + ID, id);
+        chunk.set(JAVA_BYTE, base + STATUS, statusCode(status));
+        chunk.set(JAVA_INT, base + CITY_ID, cityId);
+        chunk.set(JAVA_INT, base + DELIVERY_TIME, deliveryTime);
+        chunk.set(JAVA_INT, base + CLIENT_ID, clientId);
+        chunk.set(JAVA_LONG, base + DATE, dateMillis);
+        return row;
+    }
+
+    // Time complexity O(1) on average, reads only off-heap memory
+    @Override
+    public int findRow(int id) {
+        checkOpen();
+        int slot = hash(id) & indexMask;
+        while (true) {
+            long entry = index.getAtIndex(JAVA_LONG, slot);
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if ((int) (entry >>> 32) == id) {
+                return (int) entry;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getId(int row) {
+        return readInt(row, ID);
+    }
+
+    @Override
+    public long getDateMillis(int row) {
+        checkRow(row);
+        return chunkOf(row).get(JAVA_LONG, offsetOf(row) + DATE);
+    }
+
+    @Override
+    public void setDateMillis(int row, long dateMillis) {
+        checkRow(row);
+        chunkOf(row).set(JAVA_LONG, offsetOf(row) + DATE, dateMillis);
+    }
+
+    @Override
+    public int getCityId(int row) {
+        return readInt(row, CITY_ID);
+    }
+
+    @Override
+    public void setCityId(int row, int cityId) {
+        writeInt(row, CITY_ID, cityId);
+    }
+
+    @Override
+    public int getDeliveryTime(int row) {
+        return readInt(row, DELIVERY_TIME);
+    }
+
+    @Override
+    public void setDeliveryTime(int row, int deliveryTime) {
+        writeInt(row, DELIVERY_TIME, deliveryTime);
+    }
+
+    @Override
+    public int getClientId(int row) {
+        return readInt(row, CLIENT_ID);
+    }
+
+    @Override
+    public void setClientId(int row, int clientId) {
+        writeInt(row, CLIENT_ID, clientId);
+    }
+
+    @Override
+    protected byte getStatusCode(int row) {
+        checkRow(row);
+        return chunkOf(row).get(JAVA_BYTE, offsetOf(row) + STATUS);
+    }
+
+    @Override
+    protected void setStatusCode(int row, byte code) {
+        checkRow(row);
+        chunkOf(row).set(JAVA_BYTE, offsetOf(row) + STATUS, code);
+    }
+
+    // Scans the records chunk by chunk without bounds checks per row
+    @Override
+    public int countByStatus(Status status) {
+        checkOpen();
+        byte code = statusCode(status);
+        int count = 0;
+        for (int start = 0; start < size; start += CHUNK_RECORDS) {
+            MemorySegment chunk = chunks[start >>> CHUNK_SHIFT];
+            int rows = Math.min(CHUNK_RECORDS, size - start);
+            for (int i = 0; i < rows; i++) {
+                if (chunk.get(JAVA_BYTE, i * RECORD_SIZE + STATUS) == code) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Off-heap bytes in use by records and the ID index
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (MemorySegment chunk : chunks) {
+            if (chunk != null) {
+                bytes += chunk.byteSize();
+            }
+        }
+        return bytes + (closed ? 0 : index.byteSize());
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Free all off-heap memory. Views created earlier become unusable
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        recordArena.close();
+        indexArena.close();
+        Arrays.fill(chunks, null);
+        size = 0;
+    }
+
+    @Override
+    protected void checkRow(int row) {
+        checkOpen();
+        super.checkRow(row);
+    }
+
+    private int readInt(int row, long field) {
+        checkRow(row);
+        return chunkOf(row).get(JAVA_INT, offsetOf(row) + field);
+    }
+
+    private void writeInt(int row, long field, int value) {
+        checkRow(row);
+        chunkOf(row).set(JAVA_INT, offsetOf(row) + field, value);
+    }
+
+    private MemorySegment chunkOf(int row) {
+        return chunks[row >>> CHUNK_SHIFT];
+    }
+
+    private static long offsetOf(int row) {
+        return (row & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    private void ensureChunk(int row) {
+        int chunk = row >>> CHUNK_SHIFT;
+        if (chunk >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = recordArena.allocate(RECORD_SIZE * CHUNK_RECORDS, RECORD.byteAlignment());
+        }
+    }
+
+    private void insert(int id, int row) {
+        int slot = hash(id) & indexMask;
+        while (index.getAtIndex(JAVA_LONG, slot) != EMPTY) {
+            slot = (slot + 1) & indexMask;
+        }
+        index.setAtIndex(JAVA_LONG, slot, ((long) id << 32) | row);
+    }
+
+    // The new table lives in its own arena, so the old one is freed right away
+    private void rehash(int newCapacity) {
+        Arena oldArena = indexArena;
+        MemorySegment oldIndex = index;
+        allocateIndex(newCapacity);
+
+        for (long slot = 0, n = oldIndex.byteSize() / JAVA_LONG.byteSize(); slot < n; slot++) {
+            long entry = oldIndex.getAtIndex(JAVA_LONG, slot);
+            if (entry != EMPTY) {
+                insert((int) (entry >>> 32), (int) entry);
+            }
+        }
+        oldArena.close();
+    }
+
+    private void allocateIndex(int capacity) {
+        indexArena = Arena.ofShared();
+        index = indexArena.allocate(JAVA_LONG.byteSize() * capacity, JAVA_LONG.byteAlignment());
+        index.fill((byte) 0xFF); // Every slot EMPTY
+        indexMask = capacity - 1;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Kargo alanı kapatıldı");
+        }
+    }
+
+    // Spread sequential IDs over the table (murmur3 finalizer)
+    private static int hash(int id) {
+        int h = id;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int tableSizeFor(long capacity) {
+        int n = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(capacity - 1, 1))) << 1;
+        return Math.max(n, 16);
+    }
+}
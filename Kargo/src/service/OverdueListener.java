@@ -0,0 +1,9 @@
+package service;
+
+import model.Cargo;
+
+// Notified once when an undelivered cargo passes its deadline (date + delivery time).
+// Called from the monitor's timer thread, without any CargoManager lock held
+public interface OverdueListener {
+    void cargoOverdue(Cargo cargo, long deadlineMillis);
+}
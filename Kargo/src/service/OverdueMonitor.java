@@ -0,0 +1,326 @@
+package service;
+
+import model.Cargo;
+import model.CargoDates;
+import model.Status;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Undelivered cargos ordered by deadline (shipment date + delivery time in days).
+// Cargos wait in "pending" until their deadline passes and then move to "overdue"; only the cargos
+// that actually cross their deadline are touched, and a timer wakes up exactly at the next deadline
+// once a listener is registered, so nothing is ever scanned periodically.
+// Top K most overdue costs O(K + m log n) where m cargos crossed since the last call,
+// the overdue count of a city is O(1).
+public class OverdueMonitor implements AutoCloseable {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final class Entry {
+        final Cargo cargo;
+        final int id;
+        long deadline;
+        int cityId;
+        boolean overdue;
+
+        Entry(Cargo cargo) {
+            this.cargo = cargo;
+            this.id = cargo.getId();
+        }
+    }
+
+    private static final Comparator<Entry> BY_DEADLINE =
+            Comparator.<Entry>comparingLong(e -> e.deadline).thenComparingInt(e -> e.id);
+
+    private final Clock clock;
+    private final NavigableSet<Entry> pending = new TreeSet<>(BY_DEADLINE);
+    private final NavigableSet<Entry> overdue = new TreeSet<>(BY_DEADLINE);
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Integer, Integer> overdueByCity = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final List<OverdueListener> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> wakeup;
+    private long wakeupAt = Long.MAX_VALUE;
+
+    public OverdueMonitor() {
+        this(Clock.systemUTC());
+    }
+
+    public OverdueMonitor(Clock clock) {
+        this.clock = clock;
+    }
+
+    public static long deadlineOf(Cargo cargo) {
+        return cargo.getDateMillis() + cargo.getDeliveryTime() * DAY_MILLIS;
+    }
+
+    // Start following the cargo. Delivered cargos and cargos without a date are ignored
+    public void add(Cargo cargo) {
+        if (cargo.getStatus() == Status.DELIVERED || cargo.getDateMillis() == CargoDates.NO_DATE) {
+            return;
+        }
+        lock.lock();
+        try {
+            Entry entry = entries.get(cargo.getId());
+            boolean wasOverdue = false;
+            if (entry != null) {
+                wasOverdue = entry.overdue;
+                unlink(entry);
+            } else {
+                entry = new Entry(cargo);
+                entries.put(entry.id, entry);
+            }
+            link(entry, wasOverdue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Cargo cargo) {
+        lock.lock();
+        try {
+            Entry entry = entries.remove(cargo.getId());
+            if (entry != null) {
+                unlink(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Read the deadline and city again after the date or delivery time of a cargo changed
+    public void update(Cargo cargo) {
+        lock.lock();
+        try {
+            if (!entries.containsKey(cargo.getId())) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        add(cargo);
+    }
+
+    public void statusChanged(Cargo cargo, Status oldStatus, Status newStatus) {
+        if (newStatus == Status.DELIVERED) {
+            remove(cargo);
+        } else if (oldStatus == Status.DELIVERED) {
+            add(cargo);
+        }
+    }
+
+    public void cityChanged(Cargo cargo, int oldCityId, int newCityId) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(cargo.getId());
+            if (entry != null && entry.overdue) {
+                adjustCity(oldCityId, -1);
+                adjustCity(newCityId, 1);
+            }
+            if (entry != null) {
+                entry.cityId = newCityId;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The k most overdue cargos, most overdue first
+    public List<Cargo> getMostOverdue(int k) {
+        advance();
+        lock.lock();
+        try {
+            List<Cargo> result = new ArrayList<>(Math.max(0, Math.min(k, overdue.size())));
+            Iterator<Entry> it = overdue.iterator();
+            while (result.size() < k && it.hasNext()) {
+                result.add(it.next().cargo);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getOverdueCount() {
+        advance();
+        lock.lock();
+        try {
+            return overdue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getOverdueCount(int cityId) {
+        advance();
+        lock.lock();
+        try {
+            return overdueByCity.getOrDefault(cityId, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of undelivered cargos followed by the monitor
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The first listener starts the timer thread
+    public void addListener(OverdueListener listener) {
+        listeners.add(listener);
+        lock.lock();
+        try {
+            if (timer == null) {
+                timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                    Thread thread = new Thread(task, "overdue-monitor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            scheduleWakeup();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removeListener(OverdueListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Move every cargo whose deadline has passed to overdue and notify the listeners (on the timer thread)
+    public void advance() {
+        long now = clock.millis();
+        List<Entry> crossed = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!pending.isEmpty() && pending.first().deadline < now) {
+                Entry entry = pending.pollFirst();
+                entry.overdue = true;
+                overdue.add(entry);
+                adjustCity(entry.cityId, 1);
+                crossed.add(entry);
+            }
+            scheduleWakeup();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!crossed.isEmpty()) {
+            notifyListeners(crossed);
+        }
+    }
+
+    // Stop the timer thread
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (timer != null) {
+                timer.shutdownNow();
+                timer = null;
+                wakeup = null;
+                wakeupAt = Long.MAX_VALUE;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Events are always delivered on the timer thread, also when a query on another thread
+    // moved the cargos. Without a timer there are no listeners to notify
+    private void notifyListeners(List<Entry> crossed) {
+        ScheduledExecutorService executor;
+        lock.lock();
+        try {
+            executor = timer;
+        } finally {
+            lock.unlock();
+        }
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                for (Entry entry : crossed) {
+                    for (OverdueListener listener : listeners) {
+                        listener.cargoOverdue(entry.cargo, entry.deadline);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The monitor was closed meanwhile
+        }
+    }
+
+    // New cargos always start pending, so the next advance reports them even if they are already late.
+    // A cargo that was overdue before and still is stays overdue without a second event
+    private void link(Entry entry, boolean wasOverdue) {
+        entry.deadline = deadlineOf(entry.cargo);
+        entry.cityId = entry.cargo.getCityId();
+        entry.overdue = wasOverdue && entry.deadline < clock.millis();
+        if (entry.overdue) {
+            overdue.add(entry);
+            adjustCity(entry.cityId, 1);
+        } else {
+            pending.add(entry);
+            if (entry.deadline < wakeupAt) {
+                scheduleWakeup();
+            }
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.overdue) {
+            overdue.remove(entry);
+            adjustCity(entry.cityId, -1);
+        } else {
+            pending.remove(entry);
+        }
+    }
+
+    private void adjustCity(int cityId, int delta) {
+        overdueByCity.merge(cityId, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    // Wake up at the next deadline. Only needed when someone listens for events
+    private void scheduleWakeup() {
+        if (timer == null) {
+            return;
+        }
+        long next = pending.isEmpty() ? Long.MAX_VALUE : pending.first().deadline;
+        if (next == wakeupAt && wakeup != null && !wakeup.isDone()) {
+            return;
+        }
+        if (wakeup != null) {
+            wakeup.cancel(false);
+            wakeup = null;
+        }
+        wakeupAt = next;
+        if (next != Long.MAX_VALUE) {
+            long delay = Math.max(0, next - clock.millis() + 1);
+            wakeup = timer.schedule(this::advance, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
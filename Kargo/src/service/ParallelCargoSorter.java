@@ -0,0 +1,181 @@
+package service;
+
+import model.Cargo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+// Parallel filter and sort of cargo lists on a fork-join pool.
+// The input is cut into fixed chunks that are filtered in parallel; each chunk keeps its own matches,
+// the chunk sizes give every chunk its offset, and the chunks are copied into one result array,
+// so the input order is kept and no intermediate results are concatenated.
+// The result is sorted by ID with a stable fork-join merge sort that works on index ranges of one
+// array and uses a single scratch buffer for all levels.
+public class ParallelCargoSorter {
+    private static final int FILTER_THRESHOLD = 8192;  // Elements per leaf filter task
+    private static final int SORT_THRESHOLD = 8192;    // Below this a range is sorted sequentially
+    private static final int INSERTION_THRESHOLD = 32;
+
+    private final ForkJoinPool pool;
+
+    public ParallelCargoSorter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelCargoSorter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Cargos matching the filter, sorted by ID (stable)
+    public List<Cargo> filterAndSortById(List<Cargo> cargos, Predicate<Cargo> filter) {
+        Cargo[] selected = filter(cargos, filter);
+        sortById(selected);
+        return Arrays.asList(selected);
+    }
+
+    // Cargos matching the filter, in input order. The filter is called once per cargo
+    public Cargo[] filter(List<Cargo> cargos, Predicate<Cargo> filter) {
+        // Chunks are read by index, other lists are copied once
+        List<Cargo> source = cargos instanceof RandomAccess ? cargos : Arrays.asList(cargos.toArray(new Cargo[0]));
+        int chunkCount = (source.size() + FILTER_THRESHOLD - 1) / FILTER_THRESHOLD;
+        Cargo[][] chunks = new Cargo[chunkCount][];
+        pool.invoke(new FilterTask(source, filter, chunks, 0, chunkCount));
+
+        int[] offsets = new int[chunkCount + 1];
+        for (int i = 0; i < chunkCount; i++) {
+            offsets[i + 1] = offsets[i] + chunks[i].length;
+        }
+        Cargo[] selected = new Cargo[offsets[chunkCount]];
+        for (int i = 0; i < chunkCount; i++) {
+            System.arraycopy(chunks[i], 0, selected, offsets[i], chunks[i].length);
+        }
+        return selected;
+    }
+
+    // Stable sort by ID
+    public void sortById(Cargo[] cargos) {
+        if (cargos.length < 2) {
+            return;
+        }
+        Cargo[] scratch = new Cargo[cargos.length];
+        pool.invoke(new SortTask(cargos, scratch, 0, cargos.length));
+    }
+
+    // Filters chunks [fromChunk, toChunk) of the source, each into its own slot of chunks
+    @SuppressWarnings("serial") // Fork-join tasks are never serialized
+    private static final class FilterTask extends RecursiveAction {
+        private final List<Cargo> source;
+        private final Predicate<Cargo> filter;
+        private final Cargo[][] chunks;
+        private final int fromChunk;
+        private final int toChunk;
+
+        FilterTask(List<Cargo> source, Predicate<Cargo> filter, Cargo[][] chunks, int fromChunk, int toChunk) {
+            this.source = source;
+            this.filter = filter;
+            this.chunks = chunks;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int mid = (fromChunk + toChunk) >>> 1;
+                invokeAll(new FilterTask(source, filter, chunks, fromChunk, mid),
+                        new FilterTask(source, filter, chunks, mid, toChunk));
+                return;
+            }
+            if (toChunk == fromChunk) {
+                return;
+            }
+
+            int from = fromChunk * FILTER_THRESHOLD;
+            int to = Math.min(from + FILTER_THRESHOLD, source.size());
+            Cargo[] matches = new Cargo[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                Cargo cargo = source.get(i);
+                if (filter.test(cargo)) {
+                    matches[count++] = cargo;
+                }
+            }
+            chunks[fromChunk] = count == matches.length ? matches : Arrays.copyOf(matches, count);
+        }
+    }
+
+    @SuppressWarnings("serial") // Fork-join tasks are never serialized
+    private static final class SortTask extends RecursiveAction {
+        private final Cargo[] cargos;
+        private final Cargo[] scratch;
+        private final int from;
+        private final int to;
+
+        SortTask(Cargo[] cargos, Cargo[] scratch, int from, int to) {
+            this.cargos = cargos;
+            this.scratch = scratch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SORT_THRESHOLD) {
+                mergeSort(cargos, scratch, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(cargos, scratch, from, mid), new SortTask(cargos, scratch, mid, to));
+            merge(cargos, scratch, from, mid, to);
+        }
+    }
+
+    // Sequential merge sort of cargos[from, to) using the same scratch buffer
+    private static void mergeSort(Cargo[] cargos, Cargo[] scratch, int from, int to) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            insertionSort(cargos, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(cargos, scratch, from, mid);
+        mergeSort(cargos, scratch, mid, to);
+        merge(cargos, scratch, from, mid, to);
+    }
+
+    // Merge the sorted ranges [from, mid) and [mid, to); equal IDs keep their order
+    private static void merge(Cargo[] cargos, Cargo[] scratch, int from, int mid, int to) {
+        if (cargos[mid - 1].getId() <= cargos[mid].getId()) {
+            return; // Already in order
+        }
+        System.arraycopy(cargos, from, scratch, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            if (scratch[i].getId() <= scratch[j].getId()) {
+                cargos[k++] = scratch[i++];
+            } else {
+                cargos[k++] = scratch[j++];
+            }
+        }
+        while (i < mid) {
+            cargos[k++] = scratch[i++];
+        }
+        // Whatever is left of the right half is already in place
+    }
+
+    private static void insertionSort(Cargo[] cargos, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            Cargo cargo = cargos[i];
+            int id = cargo.getId();
+            int j = i - 1;
+            while (j >= from && cargos[j].getId() > id) {
+                cargos[j + 1] = cargos[j];
+                j--;
+            }
+            cargos[j + 1] = cargo;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package service;
+
+import model.Cargo;
+
+import java.util.Arrays;
+import java.util.List;
+
+// LSD radix sort kernels on primitive int/long keys. They return a permutation (positions in
+// ascending key order) instead of moving objects, are stable, and skip byte passes where every key
+// has the same byte. Stable passes chain into multi-key sorts: sort by the least significant key
+// first, then refine the permutation with the more significant keys.
+public final class RadixSort {
+    private static final int RADIX = 256;
+
+    private RadixSort() {
+    }
+
+    // Positions 0..n-1 in ascending key order
+    public static int[] order(int[] keys) {
+        return refine(identity(keys.length), keys);
+    }
+
+    public static int[] order(long[] keys) {
+        return refine(identity(keys.length), keys);
+    }
+
+    // Stable re-sort of an existing permutation by keys[position]
+    public static int[] refine(int[] permutation, int[] keys) {
+        int n = permutation.length;
+        int[] positions = permutation.clone();
+        int[] sortKeys = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortKeys[i] = keys[positions[i]] ^ Integer.MIN_VALUE; // Flip the sign bit so negatives come first
+        }
+
+        int[] positionsOut = new int[n];
+        int[] keysOut = new int[n];
+        int[] counts = new int[RADIX + 1];
+        for (int shift = 0; shift < 32; shift += 8) {
+            if (!countBytes(sortKeys, shift, counts)) {
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = counts[(sortKeys[i] >>> shift) & 0xFF]++;
+                positionsOut[slot] = positions[i];
+                keysOut[slot] = sortKeys[i];
+            }
+            int[] swap = positions;
+            positions = positionsOut;
+            positionsOut = swap;
+            swap = sortKeys;
+            sortKeys = keysOut;
+            keysOut = swap;
+        }
+        return positions;
+    }
+
+    // Stable re-sort of an existing permutation by keys[position]
+    public static int[] refine(int[] permutation, long[] keys) {
+        int n = permutation.length;
+        int[] positions = permutation.clone();
+        long[] sortKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            sortKeys[i] = keys[positions[i]] ^ Long.MIN_VALUE;
+        }
+
+        int[] positionsOut = new int[n];
+        long[] keysOut = new long[n];
+        int[] counts = new int[RADIX + 1];
+        for (int shift = 0; shift < 64; shift += 8) {
+            if (!countBytes(sortKeys, shift, counts)) {
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = counts[(int) (sortKeys[i] >>> shift) & 0xFF]++;
+                positionsOut[slot] = positions[i];
+                keysOut[slot] = sortKeys[i];
+            }
+            int[] swapPositions = positions;
+            positions = positionsOut;
+            positionsOut = swapPositions;
+            long[] swapKeys = sortKeys;
+            sortKeys = keysOut;
+            keysOut = swapKeys;
+        }
+        return positions;
+    }
+
+    // Stable sort of the list by cargo ID
+    public static void sortById(List<Cargo> cargos) {
+        apply(cargos, order(ids(cargos)));
+    }
+
+    // Stable sort of the list by date (unknown dates first), then ID
+    public static void sortByDate(List<Cargo> cargos) {
+        int[] permutation = order(ids(cargos));
+        apply(cargos, refine(permutation, dates(cargos)));
+    }
+
+    // Stable sort of the list by (delivery time, date, ID), the order used in dispatch reports
+    public static void sortByDeliveryTimeDateId(List<Cargo> cargos) {
+        int n = cargos.size();
+        int[] deliveryTimes = new int[n];
+        for (int i = 0; i < n; i++) {
+            deliveryTimes[i] = cargos.get(i).getDeliveryTime();
+        }
+        int[] permutation = order(ids(cargos));
+        permutation = refine(permutation, dates(cargos));
+        apply(cargos, refine(permutation, deliveryTimes));
+    }
+
+    private static int[] ids(List<Cargo> cargos) {
+        int[] ids = new int[cargos.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = cargos.get(i).getId();
+        }
+        return ids;
+    }
+
+    private static long[] dates(List<Cargo> cargos) {
+        long[] dates = new long[cargos.size()];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = cargos.get(i).getDateMillis();
+        }
+        return dates;
+    }
+
+    // Rearrange the list so element i is the old element at permutation[i]
+    private static void apply(List<Cargo> cargos, int[] permutation) {
+        Cargo[] old = cargos.toArray(new Cargo[0]);
+        for (int i = 0; i < permutation.length; i++) {
+            cargos.set(i, old[permutation[i]]);
+        }
+    }
+
+    private static int[] identity(int n) {
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = i;
+        }
+        return positions;
+    }
+
+    // Fills counts with start offsets for the byte at shift. Returns false if the pass can be skipped
+    private static boolean countBytes(int[] keys, int shift, int[] counts) {
+        Arrays.fill(counts, 0);
+        for (int key : keys) {
+            counts[((key >>> shift) & 0xFF) + 1]++;
+        }
+        return toOffsets(counts, keys.length);
+    }
+
+    private static boolean countBytes(long[] keys, int shift, int[] counts) {
+        Arrays.fill(counts, 0);
+        for (long key : keys) {
+            counts[((int) (key >>> shift) & 0xFF) + 1]++;
+        }
+        return toOffsets(counts, keys.length);
+    }
+
+    private static boolean toOffsets(int[] counts, int n) {
+        for (int b = 1; b <= RADIX; b++) {
+            if (counts[b] == n) {
+                return false; // Every key has the same byte, the pass would not change anything
+            }
+        }
+        for (int b = 1; b <= RADIX; b++) {
+            counts[b] += counts[b - 1];
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package service;
+
+import java.util.Arrays;
+
+// A computed route between two cities: total cost and the cities on the way (both ends included)
+public final class Route {
+    public static final Route NONE = new Route(RouteFinder.UNREACHABLE, new int[0]);
+
+    private final int cost;
+    private final int[] cities;
+
+    public Route(int cost, int[] cities) {
+        this.cost = cost;
+        this.cities = cities;
+    }
+
+    // Cost of the route, RouteFinder.UNREACHABLE if there is none
+    public int getCost() {
+        return cost;
+    }
+
+    public boolean exists() {
+        return cost != RouteFinder.UNREACHABLE;
+    }
+
+    public int[] getCities() {
+        return cities.clone();
+    }
+
+    public int getHopCount() {
+        return Math.max(0, cities.length - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "Route{cost=" + cost + ", cities=" + Arrays.toString(cities) + '}';
+    }
+}
@@ -0,0 +1,369 @@
+package service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded cache of routes keyed by the (origin, destination) city pair, with W-TinyLFU eviction:
+// new routes enter a small LRU window; to stay, a route leaving the window must have been asked
+// for more often than the route it would push out of the main segmented LRU (probation + protected).
+// Request counts are estimated by a count-min sketch of 4-bit counters that are halved periodically,
+// so a burst of one-off routes cannot flush the few hundred hot pairs.
+//
+// Reads never lock: the entries live in a ConcurrentHashMap and a hit is only written to a small
+// ring buffer; the eviction order is brought up to date from that buffer by whichever thread next
+// holds the eviction lock. Concurrent misses of the same pair may each compute the route once.
+public class RouteCache {
+    // Computes a route on a miss
+    public interface Loader {
+        Route load(int fromCityId, int toCityId);
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int READ_BUFFER_SIZE = 128;
+
+    private static final class Entry {
+        final long key;
+        final Route route;
+        final long epoch;
+        int queue;
+        boolean removed;
+        Entry prev;
+        Entry next;
+
+        Entry(long key, Route route, long epoch) {
+            this.key = key;
+            this.route = route;
+            this.epoch = epoch;
+        }
+    }
+
+    // Doubly linked list in access order: head is the least recently used
+    private static final class AccessQueue {
+        Entry head;
+        Entry tail;
+        int size;
+
+        void addLast(Entry entry) {
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+            size++;
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.prev;
+            } else {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            size--;
+        }
+
+        void moveToEnd(Entry entry) {
+            if (entry != tail) {
+                remove(entry);
+                addLast(entry);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final Loader loader;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong(); // Changed by invalidateAll
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AccessQueue[] queues = {new AccessQueue(), new AccessQueue(), new AccessQueue()};
+    private final FrequencySketch sketch;
+
+    private final AtomicLongArray readBuffer = new AtomicLongArray(READ_BUFFER_SIZE);
+    private final AtomicLong readTail = new AtomicLong();
+    private volatile long readHead; // Written only under evictionLock
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RouteCache(int maximumSize, Loader loader) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Önbellek boyutu en az 1 olmalı: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+        this.loader = loader;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    // Cached route, computed with the loader on a miss
+    public Route get(int fromCityId, int toCityId) {
+        long key = key(fromCityId, toCityId);
+        long currentEpoch = epoch.get();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.epoch == currentEpoch) {
+            hits.increment();
+            recordRead(key);
+            return entry.route;
+        }
+
+        misses.increment();
+        Route route = loader.load(fromCityId, toCityId);
+        put(key, route, currentEpoch);
+        return route;
+    }
+
+    // Cached route or null, never computes
+    public Route getIfPresent(int fromCityId, int toCityId) {
+        long key = key(fromCityId, toCityId);
+        Entry entry = entries.get(key);
+        if (entry == null || entry.epoch != epoch.get()) {
+            return null;
+        }
+        recordRead(key);
+        return entry.route;
+    }
+
+    // Drop every route, e.g. after the city network changed. Routes being computed right now are not stored
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            epoch.incrementAndGet();
+            entries.clear();
+            for (AccessQueue queue : queues) {
+                queue.clear();
+            }
+            readHead = readTail.get();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    // Share of requests answered from the cache, 0 before the first request
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RouteCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d}",
+                size(), maximumSize, getHitCount(), getMissCount(), getHitRate() * 100, getEvictionCount());
+    }
+
+    private void put(long key, Route route, long loadEpoch) {
+        evictionLock.lock();
+        try {
+            if (loadEpoch != epoch.get()) {
+                return; // Invalidated while the route was computed
+            }
+            drainReadBuffer();
+            sketch.increment(key);
+
+            Entry entry = new Entry(key, route, loadEpoch);
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                unlink(old);
+            }
+            entry.queue = WINDOW;
+            queues[WINDOW].addLast(entry);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Lossy: when the buffer is full the hit is only counted, not used for ordering
+    private void recordRead(long key) {
+        long index = readTail.get();
+        if (index - readHead < READ_BUFFER_SIZE && readTail.compareAndSet(index, index + 1)) {
+            readBuffer.set((int) (index & (READ_BUFFER_SIZE - 1)), key);
+        }
+        if (index - readHead >= READ_BUFFER_SIZE / 2 && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        long tail = readTail.get();
+        for (long i = readHead; i < tail; i++) {
+            Entry entry = entries.get(readBuffer.get((int) (i & (READ_BUFFER_SIZE - 1))));
+            if (entry != null && !entry.removed) {
+                onAccess(entry);
+            }
+        }
+        readHead = tail;
+    }
+
+    private void onAccess(Entry entry) {
+        sketch.increment(entry.key);
+        if (entry.queue == WINDOW) {
+            queues[WINDOW].moveToEnd(entry);
+        } else if (entry.queue == PROBATION) {
+            // Asked for again while on probation: promote to protected
+            queues[PROBATION].remove(entry);
+            entry.queue = PROTECTED;
+            queues[PROTECTED].addLast(entry);
+            while (queues[PROTECTED].size > protectedMaximum) {
+                Entry demoted = queues[PROTECTED].head;
+                queues[PROTECTED].remove(demoted);
+                demoted.queue = PROBATION;
+                queues[PROBATION].addLast(demoted);
+            }
+        } else {
+            queues[PROTECTED].moveToEnd(entry);
+        }
+    }
+
+    private void evict() {
+        // Routes leaving the window become candidates at the end of probation
+        while (queues[WINDOW].size > windowMaximum) {
+            Entry candidate = queues[WINDOW].head;
+            queues[WINDOW].remove(candidate);
+            candidate.queue = PROBATION;
+            queues[PROBATION].addLast(candidate);
+        }
+
+        while (entries.size() > maximumSize) {
+            AccessQueue probation = queues[PROBATION];
+            if (probation.size >= 2) {
+                // The newest candidate competes with the least recently used route on probation
+                Entry candidate = probation.tail;
+                Entry victim = probation.head;
+                remove(sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate);
+            } else if (probation.size == 1) {
+                remove(probation.head);
+            } else if (queues[PROTECTED].size > 0) {
+                remove(queues[PROTECTED].head);
+            } else {
+                remove(queues[WINDOW].head);
+            }
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key, entry);
+        unlink(entry);
+        evictions.increment();
+    }
+
+    private void unlink(Entry entry) {
+        if (!entry.removed) {
+            entry.removed = true;
+            queues[entry.queue].remove(entry);
+        }
+    }
+
+    private static long key(int fromCityId, int toCityId) {
+        return ((long) fromCityId << 32) | (toCityId & 0xFFFFFFFFL);
+    }
+
+    // Count-min sketch with four 4-bit counters per key. All counters are halved after
+    // 10 * maximumSize increments, so old popularity fades out
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0x85EBCA77C2B2AE63L};
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int counters = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 3; // At least 4 counters per entry
+            this.table = new long[Math.max(1, counters >>> 4)];
+            this.mask = counters - 1;
+            this.sampleSize = 10 * Math.max(maximumSize, 16);
+        }
+
+        void increment(long key) {
+            boolean added = false;
+            for (long seed : SEEDS) {
+                added |= incrementAt(index(key, seed));
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(long key) {
+            int frequency = 15;
+            for (long seed : SEEDS) {
+                int counter = index(key, seed);
+                frequency = Math.min(frequency, (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 0xF));
+            }
+            return frequency;
+        }
+
+        private boolean incrementAt(int counter) {
+            int slot = counter >>> 4;
+            int shift = (counter & 15) << 2;
+            if (((table[slot] >>> shift) & 0xF) == 0xF) {
+                return false;
+            }
+            table[slot] += 1L << shift;
+            return true;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+
+        private int index(long key, long seed) {
+            long h = (key + seed) * seed;
+            h ^= h >>> 32;
+            return (int) h & mask;
+        }
+    }
+}
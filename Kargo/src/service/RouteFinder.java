@@ -0,0 +1,250 @@
+package service;
+
+import model.TransportNetwork;
+
+import java.util.Arrays;
+
+// Shortest routes over a TransportNetwork with A*.
+// The estimate of the remaining cost is the larger of the straight-line bound (when the network has
+// coordinates) and the landmark bound: costs to and from a few far apart cities are computed once,
+// and by the triangle inequality |cost(L, t) - cost(L, v)| can never exceed cost(v, t).
+// The open set is a binary heap of packed longs (priority << 32 | city), so a search allocates
+// nothing; the per-search arrays are reused through a version stamp instead of being cleared.
+// Searches run on the network's dense city indexes; the public methods take and return city IDs.
+// Safe for concurrent use, every thread gets its own search arrays.
+public class RouteFinder {
+    public static final int UNREACHABLE = -1;
+    private static final int DEFAULT_LANDMARKS = 8;
+
+    private final TransportNetwork network;
+    private final ThreadLocal<Search> searches;
+    private final int[][] fromLandmark; // fromLandmark[k][c] = cost from landmark k to city index c
+    private final int[][] toLandmark;   // toLandmark[k][c] = cost from city index c to landmark k
+
+    public RouteFinder(TransportNetwork network) {
+        this(network, DEFAULT_LANDMARKS);
+    }
+
+    // More landmarks give tighter estimates for 2 * n ints of memory and two Dijkstra searches each
+    public RouteFinder(TransportNetwork network, int landmarkCount) {
+        this.network = network;
+        this.searches = ThreadLocal.withInitial(() -> new Search(network.getCityCount()));
+
+        int n = network.getCityCount();
+        int count = Math.min(landmarkCount, n);
+        this.fromLandmark = new int[count][];
+        this.toLandmark = new int[count][];
+        if (count == 0) {
+            return;
+        }
+        RouteFinder reverse = new RouteFinder(network.reversed(), 0);
+
+        // Farthest-point selection: each new landmark is the city farthest from the ones chosen so far
+        int[] nearest = new int[n];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int landmark = 0;
+        for (int k = 0; k < count; k++) {
+            fromLandmark[k] = costsFromIndex(landmark);
+            toLandmark[k] = reverse.costsFromIndex(landmark);
+            int farthest = -1;
+            for (int c = 0; c < n; c++) {
+                if (fromLandmark[k][c] != UNREACHABLE) {
+                    nearest[c] = Math.min(nearest[c], fromLandmark[k][c]);
+                }
+                if (nearest[c] != Integer.MAX_VALUE && nearest[c] > 0 && (farthest < 0 || nearest[c] > nearest[farthest])) {
+                    farthest = c;
+                }
+            }
+            if (farthest < 0) {
+                landmark = (landmark + 1) % n;
+            } else {
+                landmark = farthest;
+            }
+        }
+    }
+
+    public TransportNetwork getNetwork() {
+        return network;
+    }
+
+    // Cost of the cheapest route, or UNREACHABLE
+    public int shortestCost(int fromCityId, int toCityId) {
+        int from = network.indexOf(fromCityId);
+        int to = network.indexOf(toCityId);
+        if (from == TransportNetwork.NONE || to == TransportNetwork.NONE) {
+            return UNREACHABLE;
+        }
+        Search search = searches.get();
+        return search.run(from, to) ? search.cost[to] : UNREACHABLE;
+    }
+
+    // Cities on the cheapest route (both ends included), or an empty array if there is none
+    public int[] shortestPath(int fromCityId, int toCityId) {
+        return findRoute(fromCityId, toCityId).getCities();
+    }
+
+    // Cost and cities of the cheapest route from one search, Route.NONE if there is none
+    public Route findRoute(int fromCityId, int toCityId) {
+        int from = network.indexOf(fromCityId);
+        int to = network.indexOf(toCityId);
+        if (from == TransportNetwork.NONE || to == TransportNetwork.NONE) {
+            return Route.NONE;
+        }
+        Search search = searches.get();
+        if (!search.run(from, to)) {
+            return Route.NONE;
+        }
+        int length = 1;
+        for (int city = to; city != from; city = search.previous[city]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int city = to, i = length - 1; i >= 0; city = search.previous[city], i--) {
+            path[i] = network.cityId(city);
+        }
+        return new Route(search.cost[to], path);
+    }
+
+    // Cheapest cost from the city to every city (Dijkstra), UNREACHABLE where there is no route.
+    // The result is indexed by the network's city index (TransportNetwork.indexOf), not by city ID
+    public int[] costsFrom(int fromCityId) {
+        int from = network.indexOf(fromCityId);
+        if (from == TransportNetwork.NONE) {
+            int[] costs = new int[network.getCityCount()];
+            Arrays.fill(costs, UNREACHABLE);
+            return costs;
+        }
+        return costsFromIndex(from);
+    }
+
+    private int[] costsFromIndex(int from) {
+        int[] costs = new int[network.getCityCount()];
+        Arrays.fill(costs, UNREACHABLE);
+        Search search = searches.get();
+        search.run(from, -1);
+        for (int city = 0; city < costs.length; city++) {
+            if (search.closed[city] == search.stamp) {
+                costs[city] = search.cost[city];
+            }
+        }
+        return costs;
+    }
+
+    private final class Search {
+        final int[] cost;
+        final int[] previous;
+        final int[] seen;   // == stamp when cost is valid for this search
+        final int[] closed; // == stamp when the cheapest cost is final
+        long[] heap = new long[64];
+        int heapSize;
+        int stamp;
+
+        Search(int cityCount) {
+            cost = new int[cityCount];
+            previous = new int[cityCount];
+            seen = new int[cityCount];
+            closed = new int[cityCount];
+        }
+
+        // Returns true if the target was reached. A negative target settles every reachable city
+        boolean run(int source, int target) {
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+            heapSize = 0;
+            seen[source] = stamp;
+            cost[source] = 0;
+            previous[source] = source;
+            push(priority(0, source, target), source);
+
+            while (heapSize > 0) {
+                int city = (int) pop();
+                if (closed[city] == stamp) {
+                    continue; // Stale entry, the city was reached more cheaply before
+                }
+                closed[city] = stamp;
+                if (city == target) {
+                    return true;
+                }
+
+                int base = cost[city];
+                for (int link = network.firstLink(city), end = network.endLink(city); link < end; link++) {
+                    int next = network.target(link);
+                    if (closed[next] == stamp) {
+                        continue;
+                    }
+                    long candidate = (long) base + network.cost(link);
+                    if (candidate > Integer.MAX_VALUE) {
+                        continue;
+                    }
+                    if (seen[next] != stamp || candidate < cost[next]) {
+                        seen[next] = stamp;
+                        cost[next] = (int) candidate;
+                        previous[next] = city;
+                        push(priority((int) candidate, next, target), next);
+                    }
+                }
+            }
+            return target < 0;
+        }
+
+        // Both bounds are consistent and rounding down keeps them so, so the first visit of a city is final
+        long priority(int costSoFar, int city, int target) {
+            if (target < 0) {
+                return costSoFar;
+            }
+            long estimate = (long) network.estimate(city, target);
+            for (int k = 0; k < fromLandmark.length; k++) {
+                int[] from = fromLandmark[k];
+                if (from[city] != UNREACHABLE && from[target] != UNREACHABLE) {
+                    estimate = Math.max(estimate, from[target] - from[city]);
+                }
+                int[] to = toLandmark[k];
+                if (to[city] != UNREACHABLE && to[target] != UNREACHABLE) {
+                    estimate = Math.max(estimate, to[city] - to[target]);
+                }
+            }
+            return Math.min(costSoFar + estimate, Integer.MAX_VALUE);
+        }
+
+        void push(long priority, int city) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            long entry = (priority << 32) | city;
+            int pos = heapSize++;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (heap[parent] <= entry) {
+                    break;
+                }
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = entry;
+        }
+
+        // Returns the packed entry with the lowest priority; the low 32 bits are the city
+        long pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int pos = 0;
+            int half = heapSize >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package service;
+
+// Plain loop version of the filter kernels, used when the Vector API is not available
+class ScalarFilterKernel implements FilterKernel {
+    @Override
+    public void statusEquals(byte[] statuses, byte status, long[] selection) {
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] != status) {
+                selection[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    @Override
+    public void cityIn(int[] cityIds, int[] wanted, long[] selection) {
+        for (int i = 0; i < cityIds.length; i++) {
+            if (!contains(wanted, cityIds[i])) {
+                selection[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    @Override
+    public void dateBetween(long[] dates, long from, long to, long[] selection) {
+        for (int i = 0; i < dates.length; i++) {
+            if (dates[i] < from || dates[i] > to) {
+                selection[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,199 @@
+package service;
+
+import model.CityNode;
+import model.CityTree;
+import model.FlatCityTree;
+import model.Status;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Shipment counts per city and per whole subtree, split by status.
+// The tree is laid out in Euler tour (preorder) order, so every subtree is one contiguous range of
+// positions. One Fenwick tree per status sums over those ranges: a subtree total and a point update
+// on add, dispatch or move both cost O(log n). The layout is rebuilt in O(n) when cities are added.
+public class SubtreeCargoCounts {
+    private static final Status[] STATUSES = Status.values();
+    private static final int ALL = STATUSES.length; // Extra tree counting every shipment
+
+    private final CityTree cityTree;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<Integer, int[]> countsByCity = new HashMap<>(); // cityId -> count per status + all
+    private IntIntMap positions = new IntIntMap();                     // cityId -> Euler tour position
+    private int[] subtreeEnd = new int[0];                             // Last position of each subtree
+    private int[][] fenwick = new int[ALL + 1][1];
+    private int layoutVersion = -1;
+
+    public SubtreeCargoCounts(CityTree cityTree) {
+        this.cityTree = cityTree;
+    }
+
+    public void add(int cityId, Status status) {
+        update(cityId, status, 1);
+    }
+
+    public void remove(int cityId, Status status) {
+        update(cityId, status, -1);
+    }
+
+    public void statusChanged(int cityId, Status oldStatus, Status newStatus) {
+        lock.lock();
+        try {
+            ensureLayout();
+            apply(cityId, oldStatus, -1);
+            apply(cityId, newStatus, 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cityChanged(Status status, int oldCityId, int newCityId) {
+        lock.lock();
+        try {
+            ensureLayout();
+            apply(oldCityId, status, -1);
+            apply(newCityId, status, 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Shipments in the city and every city below it. Time complexity O(log n)
+    public int subtreeCount(int cityId) {
+        return query(cityId, ALL);
+    }
+
+    // Shipments with the status in the city and every city below it. Time complexity O(log n)
+    public int subtreeCount(int cityId, Status status) {
+        return query(cityId, status.ordinal());
+    }
+
+    // Shipments not yet delivered in the city and every city below it, read under one lock
+    // so both sums see the same state. Time complexity O(log n)
+    public int undeliveredSubtreeCount(int cityId) {
+        lock.lock();
+        try {
+            ensureLayout();
+            int pos = positions.get(cityId);
+            if (pos < 0) {
+                return 0;
+            }
+            return rangeSum(ALL, pos) - rangeSum(Status.DELIVERED.ordinal(), pos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Shipments in the city itself
+    public int cityCount(int cityId) {
+        lock.lock();
+        try {
+            int[] counts = countsByCity.get(cityId);
+            return counts == null ? 0 : counts[ALL];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(int cityId, Status status, int delta) {
+        lock.lock();
+        try {
+            ensureLayout();
+            apply(cityId, status, delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(int cityId, Status status, int delta) {
+        int[] counts = countsByCity.computeIfAbsent(cityId, id -> new int[ALL + 1]);
+        counts[ALL] += delta;
+        if (status != null) {
+            counts[status.ordinal()] += delta;
+        }
+
+        int pos = positions.get(cityId);
+        if (pos >= 0) {
+            add(fenwick[ALL], pos, delta);
+            if (status != null) {
+                add(fenwick[status.ordinal()], pos, delta);
+            }
+        }
+    }
+
+    private int query(int cityId, int tree) {
+        lock.lock();
+        try {
+            ensureLayout();
+            int pos = positions.get(cityId);
+            if (pos < 0) {
+                return 0;
+            }
+            return rangeSum(tree, pos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int rangeSum(int tree, int pos) {
+        return prefixSum(fenwick[tree], subtreeEnd[pos]) - prefixSum(fenwick[tree], pos - 1);
+    }
+
+    // Take the preorder numbering of the flattened tree and rebuild the Fenwick trees from the per-city counts
+    private void ensureLayout() {
+        if (layoutVersion == cityTree.getVersion()) {
+            return;
+        }
+
+        FlatCityTree flat = cityTree.flatten();
+        int n = flat.size();
+        subtreeEnd = new int[n];
+        for (int pos = 0; pos < n; pos++) {
+            subtreeEnd[pos] = flat.subtreeEnd(pos);
+        }
+
+        positions = new IntIntMap();
+        fenwick = new int[ALL + 1][n + 1];
+        for (int pos = 0; pos < n; pos++) {
+            CityNode node = flat.node(pos);
+            // Cities with a duplicate ID are not registered, their shipments belong to the first one
+            if (node.getCityId() < 0 || cityTree.findCityById(node.getCityId()) != node) {
+                continue;
+            }
+            positions.put(node.getCityId(), pos);
+            int[] counts = countsByCity.get(node.getCityId());
+            if (counts != null) {
+                for (int tree = 0; tree <= ALL; tree++) {
+                    fenwick[tree][pos + 1] = counts[tree];
+                }
+            }
+        }
+        // Build every tree in O(n) by pushing each partial sum to its parent once
+        for (int[] tree : fenwick) {
+            for (int i = 1; i <= n; i++) {
+                int parent = i + (i & -i);
+                if (parent <= n) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+        layoutVersion = cityTree.getVersion();
+    }
+
+    private static void add(int[] tree, int pos, int delta) {
+        for (int i = pos + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Sum of positions 0..pos
+    private static int prefixSum(int[] tree, int pos) {
+        int sum = 0;
+        for (int i = pos + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
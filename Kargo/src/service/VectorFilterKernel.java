@@ -0,0 +1,82 @@
+package service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD version of the filter kernels (jdk.incubator.vector). Loaded by CargoFilter only when the
+// module is present. Lane counts are powers of two up to 64 (512-bit vectors of bytes), so a
+// vector's mask bits never cross a 64-bit word of the selection bitmap.
+class VectorFilterKernel implements FilterKernel {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final int MAX_VECTOR_CITIES = 16; // Larger sets use the scalar lookup
+
+    private final ScalarFilterKernel scalar = new ScalarFilterKernel();
+
+    @Override
+    public void statusEquals(byte[] statuses, byte status, long[] selection) {
+        int i = 0;
+        int bound = BYTES.loopBound(statuses.length);
+        for (; i < bound; i += BYTES.length()) {
+            VectorMask<Byte> match = ByteVector.fromArray(BYTES, statuses, i).compare(VectorOperators.EQ, status);
+            keep(selection, i, match.toLong(), BYTES.length());
+        }
+        for (; i < statuses.length; i++) {
+            if (statuses[i] != status) {
+                selection[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    @Override
+    public void cityIn(int[] cityIds, int[] wanted, long[] selection) {
+        if (wanted.length > MAX_VECTOR_CITIES) {
+            scalar.cityIn(cityIds, wanted, selection);
+            return;
+        }
+        int i = 0;
+        int bound = INTS.loopBound(cityIds.length);
+        for (; i < bound; i += INTS.length()) {
+            IntVector cities = IntVector.fromArray(INTS, cityIds, i);
+            VectorMask<Integer> match = INTS.maskAll(false);
+            for (int city : wanted) {
+                match = match.or(cities.compare(VectorOperators.EQ, city));
+            }
+            keep(selection, i, match.toLong(), INTS.length());
+        }
+        for (; i < cityIds.length; i++) {
+            if (!ScalarFilterKernel.contains(wanted, cityIds[i])) {
+                selection[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    @Override
+    public void dateBetween(long[] dates, long from, long to, long[] selection) {
+        int i = 0;
+        int bound = LONGS.loopBound(dates.length);
+        for (; i < bound; i += LONGS.length()) {
+            LongVector values = LongVector.fromArray(LONGS, dates, i);
+            VectorMask<Long> match = values.compare(VectorOperators.GE, from)
+                    .and(values.compare(VectorOperators.LE, to));
+            keep(selection, i, match.toLong(), LONGS.length());
+        }
+        for (; i < dates.length; i++) {
+            if (dates[i] < from || dates[i] > to) {
+                selection[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    // Clear the bits of lanes [start, start + lanes) whose match bit is 0
+    private static void keep(long[] selection, int start, long matchBits, int lanes) {
+        long laneMask = lanes == 64 ? -1L : (1L << lanes) - 1;
+        long cleared = (~matchBits & laneMask) << (start & 63);
+        selection[start >>> 6] &= ~cleared;
+    }
+}
@@ -1,7 +1,10 @@
 package ui;
 
 import model.Cargo;
+import model.CargoDates;
+import model.CityNode;
 import model.CityTree;
+import model.FlatCityTree;
 import model.Client;
 import model.Status;
 import service.CargoManager;
@@ -9,9 +12,9 @@ import service.CargoManager;
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AddCargoPanel extends JPanel {
     private final JTextField cargoIdField;
@@ -100,9 +103,9 @@ public class AddCargoPanel extends JPanel {
         formPanel.add(cityLabel, gbc);
         
         gbc.gridx = 1;
-        cityCombo = new JComboBox<>(new String[]{
-            "ANKARA (1)", "İSTANBUL (2)", "BURSA (3)", "İZMİR (4)", "ANTALYA (5)"
-        });
+        cityCombo = new JComboBox<>(createCityItems(cityTree));
+        // A fixed prototype keeps the combo from measuring every city of a large hierarchy
+        cityCombo.setPrototypeDisplayValue("XXXXXXXXXXXXXXXXXXXXXXXX (000000)");
         cityCombo.setToolTipText("Select the destination city");
         UITheme.styleComboBox(cityCombo);
         cityLabel.setLabelFor(cityCombo);
@@ -181,20 +184,43 @@ public class AddCargoPanel extends JPanel {
         SwingUtilities.invokeLater(() -> cargoIdField.requestFocusInWindow());
     }
     
+    // Every city of the tree in hierarchy order, as "NAME (ID)"
+    private static String[] createCityItems(CityTree cityTree) {
+        FlatCityTree flat = cityTree.flatten();
+        List<String> items = new ArrayList<>(flat.size());
+        for (int pos = 0; pos < flat.size(); pos++) {
+            CityNode city = flat.node(pos);
+            // A city whose ID is already taken cannot receive shipments
+            if (cityTree.findCityById(city.getCityId()) == city) {
+                items.add(city.getCityName() + " (" + city.getCityId() + ")");
+            }
+        }
+        return items.toArray(new String[0]);
+    }
+
     private void handleAddCargo() {
         try {
             // Validate and parse input
             int cargoId = Integer.parseInt(cargoIdField.getText().trim());
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-            Date date = dateFormat.parse(dateField.getText().trim());
+            long date = CargoDates.parse(dateField.getText().trim());
             Status status = (Status) statusCombo.getSelectedItem();
             
             String citySelection = (String) cityCombo.getSelectedItem();
+            if (citySelection == null) {
+                showErrorDialog("Please select a city");
+                return;
+            }
+            // The ID is in the last parentheses, city names may contain their own
             int cityId = Integer.parseInt(citySelection.substring(
-                citySelection.indexOf("(") + 1, 
-                citySelection.indexOf(")")
+                citySelection.lastIndexOf("(") + 1, 
+                citySelection.lastIndexOf(")")
             ));
             
+            if (cargoManager.getCityTree().findCityById(cityId) == null) {
+                showErrorDialog("The selected city is not registered");
+                return;
+            }
+
             // Create and add cargo
             Cargo newCargo = new Cargo(cargoId, date, 0, status, currentClient, cityId);
             cargoManager.addCargo(newCargo, cityId, currentClient);
@@ -207,8 +233,11 @@ public class AddCargoPanel extends JPanel {
             
         } catch (NumberFormatException e) {
             showErrorDialog("Please enter valid numeric values");
-        } catch (ParseException e) {
+        } catch (DateTimeParseException e) {
             showErrorDialog("Please enter date in yyyy-MM-dd format");
+        } catch (IllegalArgumentException e) {
+            // Thrown by the manager before anything is changed; the city was checked above
+            showErrorDialog("A cargo with this ID already exists");
         }
     }
     
@@ -1,6 +1,7 @@
 package ui;
 
 import model.Cargo;
+import model.CargoDates;
 import model.Client;
 import model.Status;
 
@@ -8,8 +9,7 @@ import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.text.SimpleDateFormat;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
 
 public class CargoListPanel extends JPanel {
@@ -183,22 +183,19 @@ public class CargoListPanel extends JPanel {
                 tableModel.setRowCount(0);
 
                 // Get last 5 cargos using Stack
-                LinkedList<Cargo> cargoHistory = client.getCargoHistory();
+                List<Cargo> latest = client.getCargoHistory().getLatest(5);
                 Stack<Cargo> stack = new Stack<>();
                 
-                int startIndex = Math.max(0, cargoHistory.size() - 5);
-                for (int i = startIndex; i < cargoHistory.size(); i++) {
-                    stack.push(cargoHistory.get(i));
+                for (int i = latest.size() - 1; i >= 0; i--) {
+                    stack.push(latest.get(i));
                 }
 
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
                 // Add rows from stack
                 while (!stack.isEmpty()) {
                     Cargo cargo = stack.pop();
                     Object[] row = {
                         cargo.getId(),
-                        dateFormat.format(cargo.getDate()),
+                        CargoDates.format(cargo.getDateMillis()),
                         cargo.getStatus(),
                         cargo.getCityId(),
                         cargo.getDeliveryTime()
@@ -2,6 +2,8 @@ package ui;
 
 import model.CityNode;
 import model.CityTree;
+import model.FlatCityTree;
+import service.CargoManager;
 
 import javax.swing.*;
 import javax.swing.tree.*;
@@ -10,12 +12,14 @@ import java.awt.event.*;
 
 public class CityTreePanel extends JPanel {
     private final CityTree cityTree;
+    private final CargoManager cargoManager;
     private final JTree tree;
     private final JLabel statusLabel;
     private Timer statusTimer;
     
-    public CityTreePanel(CityTree cityTree) {
+    public CityTreePanel(CityTree cityTree, CargoManager cargoManager) {
         this.cityTree = cityTree;
+        this.cargoManager = cargoManager;
         setLayout(new BorderLayout(10, 10));
         setBackground(UITheme.BACKGROUND_COLOR);
         setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
@@ -161,7 +165,24 @@ public class CityTreePanel extends JPanel {
         };
     }
     
+    // Built from the flattened tree in one pass, so deep hierarchies cannot overflow the stack
     private DefaultMutableTreeNode createTreeNode(CityNode cityNode) {
+        FlatCityTree flat = cityTree.flatten();
+        int start = flat.positionOf(cityNode);
+        DefaultMutableTreeNode[] treeNodes = new DefaultMutableTreeNode[flat.subtreeSize(start)];
+
+        // Preorder puts every parent before its children, and children in their original order
+        for (int i = 0; i < treeNodes.length; i++) {
+            int pos = start + i;
+            treeNodes[i] = new DefaultMutableTreeNode(createNodeText(flat.node(pos)));
+            if (i > 0) {
+                treeNodes[flat.parent(pos) - start].add(treeNodes[i]);
+            }
+        }
+        return treeNodes[0];
+    }
+
+    private String createNodeText(CityNode cityNode) {
         StringBuilder nodeText = new StringBuilder();
         nodeText.append(cityNode.getCityName())
                 .append(" (ID: ")
@@ -172,14 +193,17 @@ public class CityTreePanel extends JPanel {
             nodeText.append(" - Active Shipments: ")
                    .append(cityNode.getCargos().size());
         }
-        
-        DefaultMutableTreeNode treeNode = new DefaultMutableTreeNode(nodeText.toString());
-        
-        for (CityNode child : cityNode.getChildren()) {
-            treeNode.add(createTreeNode(child));
+
+        // Region totals come from the subtree counts, no summing over the children.
+        // Delivered shipments are left out, like in the active count of the city itself
+        if (!cityNode.getChildren().isEmpty()) {
+            int subtreeActive = cargoManager.countUndeliveredCargosInSubtree(cityNode.getCityId());
+            if (subtreeActive > 0) {
+                nodeText.append(" - Active In Region: ")
+                       .append(subtreeActive);
+            }
         }
-        
-        return treeNode;
+        return nodeText.toString();
     }
     
     private void expandAllNodes() {
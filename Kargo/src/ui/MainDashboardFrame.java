@@ -4,12 +4,16 @@ import model.CityNode;
 import model.CityTree;
 import model.Client;
 import service.CargoManager;
+import service.CityHierarchyLoader;
 
 import javax.swing.*;
 import javax.swing.border.*;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,18 +33,7 @@ public class MainDashboardFrame extends JFrame {
         this.userDatabase = userDatabase;
         
         // Initialize backend components
-        CityNode central = new CityNode("ANKARA", 1);
-        CityNode cityA = new CityNode("İSTANBUL", 2);
-        CityNode cityB = new CityNode("BURSA", 3);
-        CityNode cityC = new CityNode("İZMİR", 4);
-        CityNode cityD = new CityNode("ANTALYA", 5);
-
-        central.addChild(cityA);
-        central.addChild(cityB);
-        cityA.addChild(cityC);
-        cityB.addChild(cityD);
-
-        this.cityTree = new CityTree(central);
+        this.cityTree = createCityTree();
         this.cargoManager = new CargoManager(cityTree);
         
         // Setup frame
@@ -78,7 +71,7 @@ public class MainDashboardFrame extends JFrame {
         AddCargoPanel addCargoPanel = new AddCargoPanel(cargoManager, cityTree, currentClient);
         CargoListPanel cargoListPanel = new CargoListPanel(currentClient);
         SearchCargoPanel searchCargoPanel = new SearchCargoPanel(currentClient, cargoManager);
-        CityTreePanel cityTreePanel = new CityTreePanel(cityTree);
+        CityTreePanel cityTreePanel = new CityTreePanel(cityTree, cargoManager);
         
         contentPanel.add(createDashboardPanel(), "DASHBOARD");
         contentPanel.add(addCargoPanel, "ADD_CARGO");
@@ -144,6 +137,35 @@ public class MainDashboardFrame extends JFrame {
         setupInitialFocus();
     }
 
+    // City hierarchy from the file named by -Dkargo.cities (CSV or binary), or the built-in demo network
+    private CityTree createCityTree() {
+        String hierarchyFile = System.getProperty("kargo.cities");
+        if (hierarchyFile != null) {
+            try {
+                return CityHierarchyLoader.load(Path.of(hierarchyFile));
+            } catch (IOException | InvalidPathException e) {
+                JOptionPane.showMessageDialog(null,
+                    "Could not load city hierarchy from " + hierarchyFile + ":\n" + e.getMessage()
+                        + "\nUsing the built-in city network instead.",
+                    "City Hierarchy Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        }
+
+        CityNode central = new CityNode("ANKARA", 1);
+        CityNode cityA = new CityNode("İSTANBUL", 2);
+        CityNode cityB = new CityNode("BURSA", 3);
+        CityNode cityC = new CityNode("İZMİR", 4);
+        CityNode cityD = new CityNode("ANTALYA", 5);
+
+        central.addChild(cityA);
+        central.addChild(cityB);
+        cityA.addChild(cityC);
+        cityB.addChild(cityD);
+
+        return new CityTree(central);
+    }
+
     private JPanel createSideNavPanel() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setPreferredSize(new Dimension(220, 0));
@@ -1,6 +1,7 @@
 package ui;
 
 import model.Cargo;
+import model.CargoDates;
 import model.Client;
 import service.CargoManager;
 
@@ -8,7 +9,6 @@ import javax.swing.*;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.text.SimpleDateFormat;
 
 public class SearchCargoPanel extends JPanel {
     private final Client client;
@@ -139,14 +139,14 @@ public class SearchCargoPanel extends JPanel {
             }
             
             int cargoId = Integer.parseInt(searchText);
-            Cargo cargo = cargoManager.binarySearchById(client.getCargoHistory(), cargoId);
+            Cargo cargo = cargoManager.findCargoById(cargoId);
             
-            if (cargo != null) {
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+            // Only show shipments that belong to the logged in client
+            if (cargo != null && cargo.getClient() != null && cargo.getClient().getId() == client.getId()) {
                 StringBuilder result = new StringBuilder();
                 result.append("Cargo Details:\n\n");
                 result.append("ID: ").append(cargo.getId()).append("\n");
-                result.append("Date: ").append(dateFormat.format(cargo.getDate())).append("\n");
+                result.append("Date: ").append(CargoDates.format(cargo.getDateMillis())).append("\n");
                 result.append("Status: ").append(cargo.getStatus()).append("\n");
                 result.append("City ID: ").append(cargo.getCityId()).append("\n");
                 result.append("Delivery Time: ").append(cargo.getDeliveryTime()).append(" days\n");